@@ -9,6 +9,7 @@ package ti.modules.titanium.accelerometer;
 
 import org.appcelerator.titanium.TiContext;
 import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEvent;
 import org.appcelerator.titanium.TiModule;
 import org.appcelerator.titanium.TiProxy;
 import org.appcelerator.titanium.util.TiConfig;
@@ -76,13 +77,13 @@ public class AccelerometerModule
 					float y = event.values[SensorManager.DATA_Y];
 					float z = event.values[SensorManager.DATA_Z];
 
-					TiDict data = new TiDict();
-					data.put("type", EVENT_UPDATE);
-					data.put("timestamp", lastEventInUpdate);
-					data.put("x", x);
-					data.put("y", y);
-					data.put("z", z);
+					TiEvent data = TiEvent.obtain(EVENT_UPDATE);
+					data.putDouble("timestamp", lastEventInUpdate);
+					data.putDouble("x", x);
+					data.putDouble("y", y);
+					data.putDouble("z", z);
 					fireEvent(EVENT_UPDATE, data);
+					data.recycle();
 				}
 			}
 		};
@@ -1,13 +1,19 @@
 package ti.modules.titanium.app;
 
+import java.io.File;
+
 import org.appcelerator.titanium.ITiAppInfo;
 import org.appcelerator.titanium.TiContext;
 import org.appcelerator.titanium.TiDict;
 import org.appcelerator.titanium.TiModule;
+import org.appcelerator.titanium.io.TiFileFactory;
 import org.appcelerator.titanium.kroll.IKrollCallable;
+import org.appcelerator.titanium.kroll.KrollStats;
+import org.appcelerator.titanium.util.TiImageCache;
 
 public class AppModule extends TiModule
 {
+	private static final String BRIDGE_STATS_FILE = "bridgestats.txt";
 
 	private ITiAppInfo appInfo;
 
@@ -25,9 +31,9 @@ public class AppModule extends TiModule
 		super.onDestroy();
 	}
 
-	public int addEventListener(String event, IKrollCallable listener)
+	public int addEventListener(String event, IKrollCallable listener, Object... options)
 	{
-		return super.addEventListener(event, listener);
+		return super.addEventListener(event, listener, options);
 	}
 
 	// Try to support both event listeners + listener IDs
@@ -80,4 +86,37 @@ public class AppModule extends TiModule
 	public String appURLToPath(String url) {
 		return getTiContext().resolveUrl(null, url);
 	}
+
+	public void setBridgeStatsEnabled(boolean enabled) {
+		KrollStats.setEnabled(enabled);
+	}
+
+	public boolean getBridgeStatsEnabled() {
+		return KrollStats.isEnabled();
+	}
+
+	public TiDict getBridgeStats() {
+		return KrollStats.getStats();
+	}
+
+	public void resetBridgeStats() {
+		KrollStats.reset();
+	}
+
+	/**
+	 * @return the image cache's sizes and hit counts, see TiImageCache.
+	 */
+	public TiDict getImageCacheStats() {
+		return TiImageCache.getStats();
+	}
+
+	// Returns the appdata:// url of the dump or null if it couldn't be written
+	public String dumpBridgeStats()
+	{
+		File f = new File(TiFileFactory.getDataDirectory(getTiContext(), false), BRIDGE_STATS_FILE);
+		if (KrollStats.dump(f)) {
+			return "appdata://" + BRIDGE_STATS_FILE;
+		}
+		return null;
+	}
 }
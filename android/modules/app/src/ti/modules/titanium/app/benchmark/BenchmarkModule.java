@@ -0,0 +1,146 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.app.benchmark;
+
+import java.util.Map;
+
+import org.appcelerator.titanium.TiContext;
+import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiModule;
+import org.appcelerator.titanium.util.TiConvert;
+
+/**
+ * Native side of the bridge benchmark in KitchenSink's bridge_benchmark_cases.js. The call
+ * methods do nothing so only the bridge is measured. Only created when the benchmark is
+ * enabled, see {@link BenchmarkModuleFactory}.
+ */
+public class BenchmarkModule extends TiModule
+{
+	// Keeps the results of the accessor loops alive
+	private long sink;
+
+	public BenchmarkModule(TiContext tiContext) {
+		super(tiContext);
+	}
+
+	public double nanoTime() {
+		return System.nanoTime();
+	}
+
+	public void call0() {
+	}
+
+	public void call1(Object a) {
+	}
+
+	public void call2(Object a, Object b) {
+	}
+
+	public void call3(Object a, Object b, Object c) {
+	}
+
+	public void call4(Object a, Object b, Object c, Object d) {
+	}
+
+	public void call5(Object a, Object b, Object c, Object d, Object e) {
+	}
+
+	public Object[] array(int size)
+	{
+		Object[] a = new Object[size];
+		for (int i = 0; i < size; i++) {
+			a[i] = i * 1.5;
+		}
+		return a;
+	}
+
+	public TiDict dict(int size)
+	{
+		TiDict d = new TiDict();
+		for (int i = 0; i < size; i++) {
+			d.put("key" + i, i);
+		}
+		return d;
+	}
+
+	/**
+	 * Times a TiDict or TiConvert accessor natively, so the bridge isn't part of it.
+	 * @param accessor one of put, putInt, get, getIntValue, getDoubleValue, getString,
+	 * toInt, toDouble, toString, iterate or toJSON.
+	 * @param size the number of keys in the dictionary, holding their index or for the
+	 * string accessors their name.
+	 * @return the nanoseconds per key.
+	 */
+	public double timeAccessor(String accessor, int size, int iterations)
+	{
+		boolean strings = accessor.equals("getString") || accessor.equals("toString");
+		String[] keys = new String[size];
+		TiDict d = new TiDict();
+		for (int i = 0; i < size; i++) {
+			keys[i] = "key" + i;
+			if (strings) {
+				d.put(keys[i], keys[i]);
+			} else {
+				d.put(keys[i], i);
+			}
+		}
+
+		long sum = 0;
+		long start = System.nanoTime();
+		for (int n = 0; n < iterations; n++) {
+			if (accessor.equals("put")) {
+				for (int i = 0; i < size; i++) {
+					d.put(keys[i], n);
+				}
+			} else if (accessor.equals("putInt")) {
+				for (int i = 0; i < size; i++) {
+					d.putInt(keys[i], n);
+				}
+			} else if (accessor.equals("get")) {
+				for (int i = 0; i < size; i++) {
+					sum += d.get(keys[i]).hashCode();
+				}
+			} else if (accessor.equals("getIntValue")) {
+				for (int i = 0; i < size; i++) {
+					sum += d.getIntValue(keys[i]);
+				}
+			} else if (accessor.equals("getDoubleValue")) {
+				for (int i = 0; i < size; i++) {
+					sum += (long) d.getDoubleValue(keys[i]);
+				}
+			} else if (accessor.equals("getString")) {
+				for (int i = 0; i < size; i++) {
+					sum += d.getString(keys[i]).length();
+				}
+			} else if (accessor.equals("toInt")) {
+				for (int i = 0; i < size; i++) {
+					sum += TiConvert.toInt(d, keys[i]);
+				}
+			} else if (accessor.equals("toDouble")) {
+				for (int i = 0; i < size; i++) {
+					sum += (long) TiConvert.toDouble(d, keys[i]);
+				}
+			} else if (accessor.equals("toString")) {
+				for (int i = 0; i < size; i++) {
+					sum += TiConvert.toString(d, keys[i]).length();
+				}
+			} else if (accessor.equals("iterate")) {
+				for (Map.Entry<String, Object> e : d.entrySet()) {
+					sum += e.getKey().length();
+				}
+			} else if (accessor.equals("toJSON")) {
+				sum += TiConvert.toJSON(d).length();
+			} else {
+				throw new IllegalArgumentException("Unknown accessor: " + accessor);
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		sink += sum;
+
+		return (double) elapsed / ((long) iterations * size);
+	}
+}
@@ -0,0 +1,27 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.app.benchmark;
+
+import org.appcelerator.titanium.TiContext;
+import org.appcelerator.titanium.kroll.KrollModuleFactory;
+
+/**
+ * Creates Titanium.App.Benchmark only for apps built with the ti.android.bridgeBenchmark
+ * tiapp property, for every other app the module doesn't exist.
+ */
+public class BenchmarkModuleFactory implements KrollModuleFactory
+{
+	public static final String PROPERTY_BRIDGE_BENCHMARK = "ti.android.bridgeBenchmark";
+
+	public Object createModule(TiContext context)
+	{
+		if (!context.getTiApp().getSystemProperties().getBool(PROPERTY_BRIDGE_BENCHMARK, false)) {
+			return null;
+		}
+		return new BenchmarkModule(context);
+	}
+}
@@ -6,7 +6,7 @@
  */
 package ti.modules.titanium.geolocation;
 
-import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEvent;
 import org.appcelerator.titanium.TiModule;
 import org.appcelerator.titanium.kroll.KrollCallback;
 import org.appcelerator.titanium.util.Log;
@@ -93,7 +93,9 @@ public class TiCompass
 							lastHeading = event.values[0];
 						}
 
-						proxy.fireEvent(EVENT_HEADING, eventToTiDict(event, ts));
+						TiEvent data = eventToTiDict(event, ts);
+						proxy.fireEvent(EVENT_HEADING, data);
+						data.recycle();
 					}
 				}
 			}
@@ -115,7 +117,9 @@ public class TiCompass
 
 				if (type == Sensor.TYPE_ORIENTATION) {
 					long ts = event.timestamp / 1000000; // nanos to millis
-					listener.callWithProperties(eventToTiDict(event, ts));
+					TiEvent data = eventToTiDict(event, ts);
+					listener.callWithProperties(data);
+					data.recycle();
 
 					sensorHelper.unregisterListener(SENSORS, this);
 					manageUpdateListener(false, this);
@@ -165,20 +169,19 @@ public class TiCompass
 		}
 	}
 
-	protected TiDict eventToTiDict(SensorEvent event, long ts)
+	protected TiEvent eventToTiDict(SensorEvent event, long ts)
 	{
 		float x = event.values[0];
 		float y = event.values[1];
 		float z = event.values[2];
 
-		TiDict heading = new TiDict();
-		heading.put("type", EVENT_HEADING);
-		heading.put("timestamp", ts);
-		heading.put("x", x);
-		heading.put("y", y);
-		heading.put("z", z);
-		heading.put("magneticHeading", x);
-		heading.put("accuracy", event.accuracy);
+		TiEvent heading = TiEvent.obtain(EVENT_HEADING);
+		heading.putDouble("timestamp", ts);
+		heading.putDouble("x", x);
+		heading.putDouble("y", y);
+		heading.putDouble("z", z);
+		heading.putDouble("magneticHeading", x);
+		heading.putInt("accuracy", event.accuracy);
 		if (DBG) {
 			switch(event.accuracy) {
 			case SensorManager.SENSOR_STATUS_UNRELIABLE :
@@ -203,9 +206,10 @@ public class TiCompass
 				trueHeading = 360 - trueHeading;
 			}
 
-			heading.put("trueHeading", trueHeading);
+			heading.putDouble("trueHeading", trueHeading);
 		}
-		TiDict data = new TiDict();
+		// The outer event owns the heading and recycles it
+		TiEvent data = TiEvent.obtain(EVENT_HEADING);
 		data.put("heading", heading);
 
 		return data;
@@ -13,6 +13,7 @@ import java.util.List;
 
 import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEvent;
 import org.appcelerator.titanium.TiProperties;
 import org.appcelerator.titanium.TiProxy;
 import org.appcelerator.titanium.TiContext.OnLifecycleEvent;
@@ -23,6 +24,7 @@ import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiUIHelper;
+import org.appcelerator.titanium.view.TiPropertyHandler;
 import org.appcelerator.titanium.view.TiUIView;
 
 import android.content.Context;
@@ -140,13 +142,14 @@ public class TiMapView extends TiUIView
 				lastLatitudeSpan = getLatitudeSpan();
 				lastLongitudeSpan = getLongitudeSpan();
 
-				TiDict d = new TiDict();
-				d.put("latitude", scaleFromGoogle(lastLatitude));
-				d.put("longitude", scaleFromGoogle(lastLongitude));
-				d.put("latitudeDelta", scaleFromGoogle(lastLatitudeSpan));
-				d.put("longitudeDelta", scaleFromGoogle(lastLongitudeSpan));
+				TiEvent d = TiEvent.obtain("regionChanged");
+				d.putDouble("latitude", scaleFromGoogle(lastLatitude));
+				d.putDouble("longitude", scaleFromGoogle(lastLongitude));
+				d.putDouble("latitudeDelta", scaleFromGoogle(lastLatitudeSpan));
+				d.putDouble("longitudeDelta", scaleFromGoogle(lastLongitudeSpan));
 
 				proxy.fireEvent("regionChanged", d);
+				d.recycle();
 			}
 
 		}
@@ -435,9 +438,6 @@ public class TiMapView extends TiUIView
 	{
 		LocalMapView view = getView();
 
-		if (d.containsKey("mapType")) {
-			doSetMapType(TiConvert.toInt(d, "mapType"));
-		}
 		if (d.containsKey("zoomEnabled")) {
 			view.setBuiltInZoomControls(TiConvert.toBoolean(d,"zoomEnabled"));
 		}
@@ -469,28 +469,31 @@ public class TiMapView extends TiUIView
 		super.processProperties(d);
 	}
 
-	@Override
-	public void propertyChanged(String key, Object oldValue, Object newValue, TiProxy proxy)
-	{
-
-		if (key.equals("location")) {
-			if (newValue != null) {
+	static {
+		registerPropertyHandler(TiMapView.class, "location", new TiPropertyHandler<TiMapView>() {
+			public void propertyChanged(TiMapView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
 				if (newValue instanceof AnnotationProxy) {
 					AnnotationProxy ap = (AnnotationProxy) newValue;
-					doSetLocation(ap.getDynamicProperties());
+					view.doSetLocation(ap.getDynamicProperties());
 				} else if (newValue instanceof TiDict) {
-					doSetLocation((TiDict) newValue);
+					view.doSetLocation((TiDict) newValue);
 				}
 			}
-		} else if (key.equals("mapType")) {
-			if (newValue == null) {
-				doSetMapType(MAP_VIEW_STANDARD);
-			} else {
-				doSetMapType(TiConvert.toInt(newValue));
+
+			@Override
+			public void processProperty(TiMapView view, String key, TiDict d) {
+				// region sets the initial location
 			}
-		} else {
-			super.propertyChanged(key, oldValue, newValue, proxy);
-		}
+		});
+		registerPropertyHandler(TiMapView.class, "mapType", new TiPropertyHandler<TiMapView>() {
+			public void propertyChanged(TiMapView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				if (newValue == null) {
+					view.doSetMapType(MAP_VIEW_STANDARD);
+				} else {
+					view.doSetMapType(TiConvert.toInt(newValue));
+				}
+			}
+		});
 	}
 
 	public void doSetLocation(TiDict d)
@@ -19,6 +19,7 @@ import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.ui.widget.TiUITableView;
+import ti.modules.titanium.ui.widget.tableview.TableViewModel;
 import android.app.Activity;
 import android.os.Message;
 
@@ -29,6 +30,11 @@ public class TableViewProxy extends TiViewProxy
 
 	private static final int MSG_UPDATE_VIEW = TiViewProxy.MSG_LAST_ID + 5001;
 	private static final int MSG_SCROLL_TO_INDEX = TiViewProxy.MSG_LAST_ID + 5002;
+	private static final int MSG_INSERT_ROW_BEFORE = TiViewProxy.MSG_LAST_ID + 5003;
+	private static final int MSG_INSERT_ROW_AFTER = TiViewProxy.MSG_LAST_ID + 5004;
+	private static final int MSG_APPEND_ROW = TiViewProxy.MSG_LAST_ID + 5005;
+	private static final int MSG_DELETE_ROW = TiViewProxy.MSG_LAST_ID + 5006;
+	private static final int MSG_UPDATE_ROW = TiViewProxy.MSG_LAST_ID + 5007;
 
 	public static final String CLASSNAME_DEFAULT = "__default__";
 	public static final String CLASSNAME_HEADER = "__header__";
@@ -37,7 +43,6 @@ public class TableViewProxy extends TiViewProxy
 	class RowResult {
 		int sectionIndex;
 		TableViewSectionProxy section;
-		TableViewRowProxy row;
 		int rowIndexInSection;
 	}
 
@@ -64,70 +69,21 @@ public class TableViewProxy extends TiViewProxy
 	}
 	
 	public void updateRow(Object row, Object data, TiDict options) {
-		TableViewRowProxy rowProxy = null;
-		TableViewSectionProxy sectionProxy = null;
-		int rowIndex = -1;
-		
-		if (row instanceof Number) {
-			RowResult rr = new RowResult();
-
-			rowIndex = ((Number)row).intValue();
-			locateIndex(rowIndex, rr);
-			rowProxy = rr.row;
-			sectionProxy = rr.section;
-		} else if (row instanceof TableViewRowProxy) {
-			ArrayList<TableViewSectionProxy> sections = getSections();
-			sectionLoop: for (int i = 0; i < sections.size(); i++) {
-				ArrayList<TableViewRowProxy> rows = sections.get(i).rows;
-				for (int j = 0; j < rows.size(); j++) {
-					if (rows.get(j) == row) {
-						rowProxy = (TableViewRowProxy)row;
-						sectionProxy = sections.get(i);
-						rowIndex = j;
-						break sectionLoop;
-					}
-				}
-			}
-		}
-		
-		if (sectionProxy != null) {
-			sectionProxy.updateRowAt(rowIndex, rowProxyFor(data));
-			getTableView().setModelDirty();
-			updateView();
-		}
+		Object[] args = { row, data };
+		editRows(MSG_UPDATE_ROW, -1, args);
 	}
 
+	/**
+	 * Appends a row, or an array of rows, to the last section.
+	 */
 	public void appendRow(Object row, TiDict options)
 	{
-		TableViewRowProxy rowProxy = rowProxyFor(row);
-		
-		ArrayList<TableViewSectionProxy> sections = getSections();
-		if (sections.size() == 0) {
-			Object[] data = { rowProxy };
-			processData(data);
-		} else {
-			TableViewSectionProxy lastSection = sections.get(sections.size() - 1);
-			rowProxy.setDynamicValue("section", lastSection);
-			rowProxy.setDynamicValue("parent", lastSection);
-
-			lastSection.insertRowAt((int) lastSection.getRowCount(), rowProxy);
-			getTableView().setModelDirty();
-		}
-		
-		updateView();
+		editRows(MSG_APPEND_ROW, -1, row);
 	}
 
 	public void deleteRow(int index, TiDict options)
 	{
-		RowResult rr = new RowResult();
-		if (locateIndex(index, rr)) {
-			rr.section.removeRowAt(rr.rowIndexInSection);
-			getTableView().setModelDirty();
-			updateView();
-		} else {
-			throw new IllegalStateException(
-				"Index out of range. Non-existant row at " + index);
-		}
+		editRows(MSG_DELETE_ROW, index, null);
 	}
 
 	public int getIndexByName(String name) {
@@ -135,8 +91,9 @@ public class TableViewProxy extends TiViewProxy
 		int idx = 0;
 		if (name != null) {
 			for (TableViewSectionProxy section : getSections()) {
-				for (TableViewRowProxy row : section.getRows()) {
-					String rname = TiConvert.toString(row.getDynamicValue("name"));
+				int rowCount = (int) section.getRowCount();
+				for (int i = 0; i < rowCount; i++) {
+					String rname = TiConvert.toString(section.getRowValue(i, "name"));
 					if (rname != null && name.equals(rname)) {
 						index = idx;
 						break;
@@ -152,6 +109,135 @@ public class TableViewProxy extends TiViewProxy
 	}
 
 	public void insertRowBefore(int index, Object data, TiDict options) {
+		editRows(MSG_INSERT_ROW_BEFORE, index, data);
+	}
+
+	public void insertRowAfter(int index, Object data, TiDict options) {
+		editRows(MSG_INSERT_ROW_AFTER, index, data);
+	}
+
+	// Row edits change the sections and patch the table's view model together, so they
+	// run on the UI thread where the list reads the model. Errors are rethrown to the caller.
+	private void editRows(int what, int index, Object arg)
+	{
+		if (getTiContext().isUIThread()) {
+			handleEditRows(what, index, arg);
+			return;
+		}
+
+		AsyncResult result = new AsyncResult(arg);
+		Message msg = getUIHandler().obtainMessage(what, result);
+		msg.arg1 = index;
+		msg.sendToTarget();
+		Object error = result.getResult();
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error instanceof Throwable) {
+			throw new RuntimeException((Throwable) error);
+		}
+	}
+
+	private void handleEditRows(int what, int index, Object arg)
+	{
+		switch (what) {
+			case MSG_INSERT_ROW_BEFORE :
+				handleInsertRowBefore(index, arg);
+				break;
+			case MSG_INSERT_ROW_AFTER :
+				handleInsertRowAfter(index, arg);
+				break;
+			case MSG_APPEND_ROW :
+				handleAppendRows(arg);
+				break;
+			case MSG_DELETE_ROW :
+				handleDeleteRow(index);
+				break;
+			case MSG_UPDATE_ROW :
+				Object[] args = (Object[]) arg;
+				handleUpdateRow(args[0], args[1]);
+				break;
+		}
+	}
+
+	private void handleUpdateRow(Object row, Object data)
+	{
+		RowResult rr = new RowResult();
+		boolean found = false;
+		if (row instanceof Number) {
+			found = locateIndex(((Number) row).intValue(), rr);
+		} else if (row instanceof TableViewRowProxy) {
+			ArrayList<TableViewSectionProxy> sections = getSections();
+			for (int i = 0; i < sections.size(); i++) {
+				int rowIndex = sections.get(i).rows.indexOf(row);
+				if (rowIndex >= 0) {
+					rr.sectionIndex = i;
+					rr.section = sections.get(i);
+					rr.rowIndexInSection = rowIndex;
+					found = true;
+					break;
+				}
+			}
+		}
+
+		if (found) {
+			Object newRow = rowFor(data);
+			rr.section.updateRowAt(rr.rowIndexInSection, newRow);
+			getTableView().updateRow(rr.sectionIndex, rr.rowIndexInSection, newRow);
+		}
+	}
+
+	private void handleAppendRows(Object row)
+	{
+		Object[] data = null;
+		if (row instanceof Object[]) {
+			data = (Object[]) row;
+		} else {
+			data = new Object[] { row };
+		}
+
+		ArrayList<Object> newRows = new ArrayList<Object>(data.length);
+		for (int i = 0; i < data.length; i++) {
+			newRows.add(rowFor(data[i]));
+		}
+
+		ArrayList<TableViewSectionProxy> sections = getSections();
+		if (sections.size() == 0) {
+			processData(newRows.toArray());
+			getTableView().setModelDirty();
+			getTableView().updateView();
+		} else {
+			int sectionIndex = sections.size() - 1;
+			TableViewSectionProxy lastSection = sections.get(sectionIndex);
+			int indexInSection = (int) lastSection.getRowCount();
+			for (int i = 0; i < newRows.size(); i++) {
+				Object newRow = newRows.get(i);
+				if (newRow instanceof TableViewRowProxy) {
+					TableViewRowProxy rowProxy = (TableViewRowProxy) newRow;
+					rowProxy.setDynamicValue("section", lastSection);
+					rowProxy.setDynamicValue("parent", lastSection);
+				}
+				lastSection.insertRowAt(indexInSection + i, newRow);
+			}
+			getTableView().insertRows(sectionIndex, indexInSection, newRows);
+		}
+	}
+
+	private void handleDeleteRow(int index)
+	{
+		RowResult rr = new RowResult();
+		if (locateIndex(index, rr)) {
+			rr.section.removeRowAt(rr.rowIndexInSection);
+			getTableView().removeRow(rr.sectionIndex, rr.rowIndexInSection);
+		} else {
+			throw new IllegalStateException(
+				"Index out of range. Non-existant row at " + index);
+		}
+	}
+
+	private void handleInsertRowBefore(int index, Object data)
+	{
 		if (getSections().size() > 0) {
 			if (index < 0) {
 				index = 0;
@@ -159,35 +245,77 @@ public class TableViewProxy extends TiViewProxy
 
 			RowResult rr = new RowResult();
 			if (locateIndex(index, rr)) {
-				TableViewRowProxy rowProxy = rowProxyFor(data);
-				rr.section.insertRowAt(rr.rowIndexInSection, rowProxy);
+				Object newRow = rowFor(data);
+				rr.section.insertRowAt(rr.rowIndexInSection, newRow);
+				getTableView().insertRows(rr.sectionIndex, rr.rowIndexInSection, Arrays.asList(newRow));
 			} else {
 				throw new IllegalStateException(
 					"Index out of range. Non-existant row at " + index);
 			}
 		} else {
 			// Add first row.
-			Object[] args = { rowProxyFor(data) };
+			Object[] args = { rowFor(data) };
 			processData(args);
+			getTableView().setModelDirty();
+			getTableView().updateView();
 		}
-		getTableView().setModelDirty();
-		updateView();
 	}
 
-	public void insertRowAfter(int index, Object data, TiDict options) {
+	private void handleInsertRowAfter(int index, Object data)
+	{
 		RowResult rr = new RowResult();
 		if (locateIndex(index, rr)) {
 			// TODO check for section
-			TableViewRowProxy rowProxy = rowProxyFor(data);
-			rr.section.insertRowAt(rr.rowIndexInSection + 1, rowProxy);
-			getTableView().setModelDirty();
-			updateView();
+			Object newRow = rowFor(data);
+			rr.section.insertRowAt(rr.rowIndexInSection + 1, newRow);
+			getTableView().insertRows(rr.sectionIndex, rr.rowIndexInSection + 1, Arrays.asList(newRow));
 		} else {
 			throw new IllegalStateException(
 				"Index out of range. Non-existant row at " + index);
 		}
 	}
 
+	/**
+	 * Called on the UI thread when a section created the proxy of a data row, so the row's
+	 * view is bound to it from then on.
+	 */
+	void rowMaterialized(TableViewSectionProxy section, int indexInSection, TableViewRowProxy rowProxy)
+	{
+		int sectionIndex = getSections().indexOf(section);
+		TiUITableView tableView = (TiUITableView) peekView();
+		if (sectionIndex >= 0 && tableView != null) {
+			tableView.rowMaterialized(sectionIndex, indexInSection, rowProxy);
+		}
+	}
+
+	/**
+	 * Called on the UI thread when script set a property of row, so the table can follow
+	 * changes to its filter attribute.
+	 */
+	void rowChanged(TableViewRowProxy row, String key)
+	{
+		TiUITableView tableView = (TiUITableView) peekView();
+		if (tableView == null) {
+			return;
+		}
+		ArrayList<TableViewSectionProxy> sections = getSections();
+		for (int i = 0; i < sections.size(); i++) {
+			int rowIndex = sections.get(i).rows.indexOf(row);
+			if (rowIndex >= 0) {
+				tableView.rowChanged(i, rowIndex, key);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return how often row views were recycled and row heights reused, for tuning className
+	 * and rowTemplate choices.
+	 */
+	public TiDict getRecycleStats() {
+		return getTableView().getRecycleStats();
+	}
+
 	public void scrollToIndex(int index, TiDict options) {
 		getTableView().scrollToIndex(index);
 	}
@@ -208,20 +336,17 @@ public class TableViewProxy extends TiViewProxy
 		sections.clear();
 
 		TableViewSectionProxy currentSection = null;
+		boolean hasTemplate = getRowTemplate() != null;
 
 		for (int i = 0; i < data.length; i++) {
 			Object o = data[i];
 
 			if (o instanceof TiDict) {
 				TiDict d = (TiDict) o;
-				Object[] args = { d };
-				TableViewRowProxy rowProxy = new TableViewRowProxy(getTiContext(), args);
-				rowProxy.setDynamicValue("className", CLASSNAME_NORMAL);
-				rowProxy.setDynamicValue("rowData", data);
-				rowProxy.setParent(this);
 
 				if (currentSection == null || d.containsKey("header")) {
 					currentSection = new TableViewSectionProxy(getTiContext(), new Object[0]);
+					currentSection.setParent(this);
 					sections.add(currentSection);
 				}
 				if (d.containsKey("header")) {
@@ -230,7 +355,18 @@ public class TableViewProxy extends TiViewProxy
 				if (d.containsKey("footer")) {
 					currentSection.setDynamicValue("footerTitle", d.get("footer"));
 				}
-				currentSection.add(rowProxy);
+
+				if (hasTemplate) {
+					// Bound straight from the data, a proxy is only made if script asks for the row.
+					currentSection.addData(d);
+				} else {
+					Object[] args = { d };
+					TableViewRowProxy rowProxy = new TableViewRowProxy(getTiContext(), args);
+					rowProxy.setDynamicValue("className", CLASSNAME_NORMAL);
+					rowProxy.setDynamicValue("rowData", data);
+					rowProxy.setParent(this);
+					currentSection.add(rowProxy);
+				}
 			} else if (o instanceof TableViewRowProxy) {
 				TableViewRowProxy rowProxy = (TableViewRowProxy) o;
 				TiDict d = rowProxy.getDynamicProperties();
@@ -238,6 +374,7 @@ public class TableViewProxy extends TiViewProxy
 
 				if (currentSection == null || d.containsKey("header")) {
 					currentSection = new TableViewSectionProxy(getTiContext(), new Object[0]);
+					currentSection.setParent(this);
 					sections.add(currentSection);
 				}
 				if (d.containsKey("header")) {
@@ -273,6 +410,26 @@ public class TableViewProxy extends TiViewProxy
 		return new Object[0];		
 	}
 
+	/**
+	 * @return the template rows are built from, see processData.
+	 */
+	public TiDict getRowTemplate()
+	{
+		Object template = getDynamicValue("rowTemplate");
+		if (template instanceof TiDict) {
+			return (TiDict) template;
+		}
+		return null;
+	}
+
+	// Tables with a row template keep plain row data as is, everything else becomes a proxy.
+	private Object rowFor(Object row) {
+		if (row instanceof TiDict && getRowTemplate() != null) {
+			return row;
+		}
+		return rowProxyFor(row);
+	}
+
 	private TableViewRowProxy rowProxyFor(Object row) {
 		TableViewRowProxy rowProxy = null;
 		if (row instanceof TiDict) {
@@ -290,16 +447,31 @@ public class TableViewProxy extends TiViewProxy
 	}
 
 	private boolean locateIndex(int index, RowResult rowResult) {
+		ArrayList<TableViewSectionProxy> sections = getSections();
+
+		// The view model keeps section offsets, use them unless it is due for a rebuild.
+		TableViewModel model = getTableView().getModel();
+		int sectionIndex = model.getSectionOfRow(index);
+		if (sectionIndex >= 0 && sectionIndex < sections.size()) {
+			TableViewSectionProxy section = sections.get(sectionIndex);
+			int rowIndex = index - model.getFirstRowOfSection(sectionIndex);
+			if (rowIndex < section.getRowCount()) {
+				rowResult.section = section;
+				rowResult.sectionIndex = sectionIndex;
+				rowResult.rowIndexInSection = rowIndex;
+				return true;
+			}
+		}
+
 		boolean found = false;
 		int rowCount = 0;
-		int sectionIndex = 0;
+		sectionIndex = 0;
 
-		for (TableViewSectionProxy section : getSections()) {
+		for (TableViewSectionProxy section : sections) {
 			int sectionRowCount = (int) section.getRowCount();
 			if (sectionRowCount + rowCount > index) {
 				rowResult.section = section;
 				rowResult.sectionIndex = sectionIndex;
-				rowResult.row = section.getRows()[index - rowCount];
 				rowResult.rowIndexInSection = index - rowCount;
 				found = true;
 				break;
@@ -314,6 +486,11 @@ public class TableViewProxy extends TiViewProxy
 	}
 
 	public void updateView() {
+		if (getTiContext().isUIThread()) {
+			getTableView().updateView();
+			return;
+		}
+
 		AsyncResult result = new AsyncResult();
 		Message msg = getUIHandler().obtainMessage(MSG_UPDATE_VIEW);
 		msg.obj = result;
@@ -336,6 +513,16 @@ public class TableViewProxy extends TiViewProxy
 		} else if (msg.what == MSG_SCROLL_TO_INDEX) {
 			getTableView().scrollToIndex(msg.arg1);
 			return true;
+		} else if (msg.what >= MSG_INSERT_ROW_BEFORE && msg.what <= MSG_UPDATE_ROW) {
+			AsyncResult result = (AsyncResult) msg.obj;
+			try {
+				handleEditRows(msg.what, msg.arg1, result.getArg());
+				result.setResult(null);
+			} catch (Throwable t) {
+				// Anything not handed back would leave the caller blocked forever
+				result.setResult(t);
+			}
+			return true;
 		}
 
 		return super.handleMessage(msg);
@@ -349,8 +536,10 @@ public class TableViewProxy extends TiViewProxy
 		super.eventListenerAdded(eventName, count, proxy);
 		if (eventName.equals("click") && proxy == this) {
 			for (TableViewSectionProxy section : getSections()) {
-				for (TableViewRowProxy row : section.getRows()) {
-					row.setLabelsClickable(true);
+				for (Object row : section.rows) {
+					if (row instanceof TableViewRowProxy) {
+						((TableViewRowProxy) row).setLabelsClickable(true);
+					}
 				}
 			}
 		}
@@ -361,8 +550,10 @@ public class TableViewProxy extends TiViewProxy
 		super.eventListenerRemoved(eventName, count, proxy);
 		if (eventName.equals("click") && count == 0 && proxy == this) {
 			for (TableViewSectionProxy section : getSections()) {
-				for (TableViewRowProxy row : section.getRows()) {
-					row.setLabelsClickable(false);
+				for (Object row : section.rows) {
+					if (row instanceof TableViewRowProxy) {
+						((TableViewRowProxy) row).setLabelsClickable(false);
+					}
 				}
 			}
 		}
@@ -25,6 +25,8 @@ public class TableViewRowProxy extends TiViewProxy
 {
 	protected ArrayList<TiViewProxy> controls;
 	protected TiTableViewRowProxyItem tableViewItem;
+	// Structure of the controls for recycling row views, dropped whenever they change.
+	private String controlsSignature;
 	
 	private static final int MSG_SET_DATA = TiViewProxy.MSG_LAST_ID + 5001;
 	
@@ -55,11 +57,62 @@ public class TableViewRowProxy extends TiViewProxy
 		}
 		controls.add(control);
 		control.setParent(this);
+		controlsChanged();
+	}
+
+	@Override
+	public void remove(TiViewProxy control)
+	{
+		if (controls != null && controls.remove(control)) {
+			if (control.getParent() == this) {
+				control.setParent(null);
+			}
+			controlsChanged();
+		}
+	}
+
+	/**
+	 * @return the layout signatures of the controls, or null if the row has none.
+	 */
+	public String getControlsSignature()
+	{
+		String signature = controlsSignature;
+		if (signature == null && hasControls()) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < controls.size(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				controls.get(i).appendLayoutSignature(sb);
+			}
+			signature = sb.toString();
+			controlsSignature = signature;
+		}
+		return signature;
+	}
+
+	// A row already shown in a table needs a view of its new layout.
+	private void controlsChanged()
+	{
+		controlsSignature = null;
+		TableViewProxy table = getTable();
+		if (table != null && table.peekView() != null) {
+			table.updateView();
+		}
 	}
 	
 	public void setTableViewItem(TiTableViewRowProxyItem item) {
 		this.tableViewItem = item;
 	}
+
+	/**
+	 * Called when item is recycled for another row, so changes here stop redrawing it.
+	 */
+	public void releaseTableViewItem(TiTableViewRowProxyItem item) {
+		if (tableViewItem == item) {
+			tableViewItem = null;
+		}
+	}
 	
 	public TableViewProxy getTable() {
 		TiViewProxy parent = getParent();
@@ -72,8 +125,8 @@ public class TableViewRowProxy extends TiViewProxy
 	@Override
 	public void setDynamicValue(String key, Object value) {
 		super.setDynamicValue(key, value);
-		if (tableViewItem != null) {
-			Message msg = getUIHandler().obtainMessage(MSG_SET_DATA);
+		if (tableViewItem != null || getTable() != null) {
+			Message msg = getUIHandler().obtainMessage(MSG_SET_DATA, key);
 			msg.sendToTarget();
 		}
 	}
@@ -81,7 +134,13 @@ public class TableViewRowProxy extends TiViewProxy
 	@Override
 	public boolean handleMessage(Message msg) {
 		if (msg.what == MSG_SET_DATA) {
-			tableViewItem.setRowData(this);
+			if (tableViewItem != null) {
+				tableViewItem.setRowData(this);
+			}
+			TableViewProxy table = getTable();
+			if (table != null) {
+				table.rowChanged(this, (String) msg.obj);
+			}
 			return true;
 		}
 		return super.handleMessage(msg);
@@ -97,12 +156,17 @@ public class TableViewRowProxy extends TiViewProxy
 		if (eventName.equals("click")) {
 			// inject row click data for events coming from row children
 			TableViewProxy table = getTable();
-			Item item = tableViewItem.getRowData();
+			Item item = tableViewItem != null ? tableViewItem.getRowData() : null;
 			if (table != null && item != null) {
 				TableViewModel model = table.getTableView().getModel();
 				data.put("rowData", item.rowData);
 				data.put("section", model.getSection(item.sectionIndex));
-				data.put("row", item.proxy);
+				if (item.isDataRow()) {
+					// Clicked through the stand-in of a data row, script gets the row's own proxy
+					data.put("row", model.materialize(item));
+				} else {
+					data.put("row", item.proxy);
+				}
 				data.put("index", item.index);
 				data.put("detail", false);
 			}
@@ -9,19 +9,25 @@ package ti.modules.titanium.ui;
 import java.util.ArrayList;
 
 import org.appcelerator.titanium.TiContext;
+import org.appcelerator.titanium.TiDict;
 import org.appcelerator.titanium.proxy.TiViewProxy;
+import org.appcelerator.titanium.util.AsyncResult;
 import org.appcelerator.titanium.view.TiUIView;
 
 import android.app.Activity;
+import android.os.Message;
 
 public class TableViewSectionProxy extends TiViewProxy
 {
+	private static final int MSG_MATERIALIZE_ROWS = TiViewProxy.MSG_LAST_ID + 5001;
 
-	ArrayList<TableViewRowProxy> rows;
+	// TableViewRowProxy, or for tables with a rowTemplate the TiDict of a row that hasn't
+	// been touched from script yet, see materializeRow.
+	ArrayList<Object> rows;
 
 	public TableViewSectionProxy(TiContext tiContext, Object[] args) {
 		super(tiContext, args);
-		rows = new ArrayList<TableViewRowProxy>();
+		rows = new ArrayList<Object>();
 	}
 
 	@Override
@@ -29,9 +35,8 @@ public class TableViewSectionProxy extends TiViewProxy
 		return null;
 	}
 
-	public TableViewRowProxy[] getRows()
-	{
-		return rows.toArray(new TableViewRowProxy[rows.size()]);
+	public TableViewRowProxy[] getRows() {
+		return (TableViewRowProxy[]) materializeRows(-1);
 	}
 
 	public double getRowCount() {
@@ -48,6 +53,10 @@ public class TableViewSectionProxy extends TiViewProxy
 		}
 	}
 
+	void addData(TiDict data) {
+		rows.add(data);
+	}
+
 	public void remove(TableViewRowProxy rowProxy) {
 		if (rowProxy != null) {
 			rows.remove(rowProxy);
@@ -61,13 +70,129 @@ public class TableViewSectionProxy extends TiViewProxy
 	{
 		TableViewRowProxy result = null;
 		if (index > -1 && index < rows.size()) {
-			result = rows.get(index);
+			result = (TableViewRowProxy) materializeRows(index);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the row's proxy, or its data if it doesn't have one yet, without creating one.
+	 */
+	public Object peekRow(int index) {
+		return rows.get(index);
+	}
+
+	/**
+	 * @return the value of a row property, without creating a proxy for the row.
+	 */
+	public Object getRowValue(int index, String key)
+	{
+		Object row = rows.get(index);
+		if (row instanceof TableViewRowProxy) {
+			return ((TableViewRowProxy) row).getDynamicValue(key);
+		}
+
+		TiDict data = (TiDict) row;
+		if (data.containsKey(key)) {
+			return data.get(key);
+		}
+		TiDict template = getRowTemplate();
+		return template != null ? template.get(key) : null;
+	}
+
+	private TiDict getRowTemplate()
+	{
+		TiViewProxy parent = getParent();
+		if (parent instanceof TableViewProxy) {
+			return ((TableViewProxy) parent).getRowTemplate();
+		}
+		return null;
+	}
+
+	// Data rows get their proxies on the UI thread, where the table's view model reads the
+	// rows and is pointed at the new proxy. An index of -1 materializes every row.
+	private Object materializeRows(int index)
+	{
+		if (getTiContext().isUIThread()) {
+			return handleMaterializeRows(index);
 		}
 
+		AsyncResult result = new AsyncResult();
+		Message msg = getUIHandler().obtainMessage(MSG_MATERIALIZE_ROWS, result);
+		msg.arg1 = index;
+		msg.sendToTarget();
+		Object rowOrRows = result.getResult();
+		if (rowOrRows instanceof RuntimeException) {
+			throw (RuntimeException) rowOrRows;
+		} else if (rowOrRows instanceof Error) {
+			throw (Error) rowOrRows;
+		}
+		return rowOrRows;
+	}
+
+	private Object handleMaterializeRows(int index)
+	{
+		if (index >= 0) {
+			return materializeRow(index);
+		}
+
+		TableViewRowProxy[] result = new TableViewRowProxy[rows.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = materializeRow(i);
+		}
 		return result;
 	}
 
-	public void insertRowAt(int index, TableViewRowProxy row) {
+	/**
+	 * Creates the proxy of a data row once script needs it, it replaces the data from then on.
+	 * Must be called on the UI thread.
+	 */
+	private TableViewRowProxy materializeRow(int index)
+	{
+		Object row = rows.get(index);
+		if (row instanceof TableViewRowProxy) {
+			return (TableViewRowProxy) row;
+		}
+
+		TiDict data = (TiDict) row;
+		TiDict template = getRowTemplate();
+		TiDict d = template != null ? new TiDict(template) : new TiDict();
+		d.putAll(data);
+
+		Object[] args = { d };
+		TableViewRowProxy rowProxy = new TableViewRowProxy(getTiContext(), args);
+		if (!d.containsKey("className")) {
+			rowProxy.setDynamicValue("className", TableViewProxy.CLASSNAME_NORMAL);
+		}
+		rowProxy.setDynamicValue("rowData", data);
+		rowProxy.setParent(getParent() != null ? getParent() : this);
+		rows.set(index, rowProxy);
+
+		TiViewProxy parent = getParent();
+		if (parent instanceof TableViewProxy) {
+			((TableViewProxy) parent).rowMaterialized(this, index, rowProxy);
+		}
+		return rowProxy;
+	}
+
+	@Override
+	public boolean handleMessage(Message msg)
+	{
+		if (msg.what == MSG_MATERIALIZE_ROWS) {
+			AsyncResult result = (AsyncResult) msg.obj;
+			try {
+				result.setResult(handleMaterializeRows(msg.arg1));
+			} catch (Throwable t) {
+				// Anything not handed back would leave the caller blocked forever
+				result.setResult(t);
+			}
+			return true;
+		}
+		return super.handleMessage(msg);
+	}
+
+	public void insertRowAt(int index, Object row) {
 		rows.add(index, row);
 	}
 
@@ -75,7 +200,7 @@ public class TableViewSectionProxy extends TiViewProxy
 		rows.remove(index);
 	}
 
-	public void updateRowAt(int index, TableViewRowProxy row)
+	public void updateRowAt(int index, Object row)
 	{
 		//TODO this may not be the most efficient way to handle this model change
 		rows.set(index, row);
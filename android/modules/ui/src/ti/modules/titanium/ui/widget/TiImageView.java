@@ -7,6 +7,7 @@
 package ti.modules.titanium.ui.widget;
 
 import org.appcelerator.titanium.util.TiConfig;
+import org.appcelerator.titanium.util.TiImageCache;
 
 import android.content.Context;
 import android.graphics.Bitmap;
@@ -186,7 +187,10 @@ public class TiImageView extends ViewGroup
 		if (od != null) {
 			od.setCallback(null);
 			if (od instanceof BitmapDrawable && recycle) {
-				((BitmapDrawable) od).getBitmap().recycle();
+				Bitmap b = ((BitmapDrawable) od).getBitmap();
+				if (b != null && !TiImageCache.isShared(b)) {
+					b.recycle();
+				}
 			}
 		}
 		imageView.setImageDrawable(d);
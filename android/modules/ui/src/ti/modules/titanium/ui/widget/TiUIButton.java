@@ -110,10 +110,10 @@ public class TiUIButton extends TiUIView
 			TiUIHelper.styleText(btn, (TiDict) newValue);
 		} else if (key.equals("textAlign")) {
 			TiUIHelper.setAlignment(btn, TiConvert.toString(newValue), null);
-			btn.requestLayout();
+			layoutNativeView();
 		} else if (key.equals("verticalAlign")) {
 			TiUIHelper.setAlignment(btn, null, TiConvert.toString(newValue));
-			btn.requestLayout();
+			layoutNativeView();
 		} else {
 			super.propertyChanged(key, oldValue, newValue, proxy);
 		}
@@ -26,7 +26,9 @@ import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiBackgroundImageLoadTask;
 import org.appcelerator.titanium.util.TiConfig;
 import org.appcelerator.titanium.util.TiConvert;
+import org.appcelerator.titanium.util.TiImageCache;
 import org.appcelerator.titanium.util.TiUIHelper;
+import org.appcelerator.titanium.view.TiPropertyHandler;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.filesystem.FileProxy;
@@ -134,9 +136,15 @@ public class TiUIImageView extends TiUIView
 			}
 		} else if (image instanceof String) {
 			String url = proxy.getTiContext().resolveUrl(null, (String)image);
+			Bitmap b = TiImageCache.getBitmap(url, 0, 0);
+			if (b != null) {
+				return b;
+			}
 			TiBaseFile file = TiFileFactory.createTitaniumFile(proxy.getTiContext(), new String[] { url }, false);
 			try {
-				return TiUIHelper.createBitmap(file.getInputStream());
+				b = TiUIHelper.createBitmap(file.getInputStream());
+				TiImageCache.putBitmap(url, 0, 0, b);
+				return b;
 			} catch (IOException e) {
 				Log.e(LCAT, "Error creating drawable from path: " + image.toString(), e);
 			}
@@ -434,95 +442,80 @@ public class TiUIImageView extends TiUIView
 		fireStop();
 	}
 
-	@Override
-	public void processProperties(TiDict d)
-	{
-		TiImageView view = getView();
+	static {
+		registerPropertyHandler(TiUIImageView.class, "images", new TiPropertyHandler<TiUIImageView>() {
+			public void propertyChanged(TiUIImageView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				if (newValue instanceof Object[]) {
+					view.setImages((Object[]) newValue);
+				}
+			}
+		});
+		registerPropertyHandler(TiUIImageView.class, "url", new TiPropertyHandler<TiUIImageView>() {
+			public void propertyChanged(TiUIImageView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.loadRemoteImage(TiConvert.toString(newValue));
+			}
 
-		if (d.containsKey("images")) {
-			Object o = d.get("images");
-			if (o instanceof Object[]) {
-				setImages((Object[])o);
+			@Override
+			public void processProperty(TiUIImageView view, String key, TiDict d) {
+				if (!d.containsKey("images")) {
+					Log.w(LCAT, "The url property of ImageView is deprecated, use image instead.");
+					if (!d.containsKey("image")) {
+						d.put("image", d.get("url"));
+					}
+				}
 			}
-		}
-		else if (d.containsKey("url")) {
-			Log.w(LCAT, "The url property of ImageView is deprecated, use image instead.");
-			if (!d.containsKey("image")) {
-				d.put("image", d.get("url"));
+		});
+		registerPropertyHandler(TiUIImageView.class, "canScale", new TiPropertyHandler<TiUIImageView>() {
+			public void propertyChanged(TiUIImageView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.getView().setCanScaleImage(TiConvert.toBoolean(newValue));
 			}
-		}
-		if (d.containsKey("canScale")) {
-			view.setCanScaleImage(TiConvert.toBoolean(d, "canScale"));
-		}
-		if (d.containsKey("enableZoomControls")) {
-			view.setEnableZoomControls(TiConvert.toBoolean(d, "enableZoomControls"));
-		}
-		if (d.containsKey("image")) {
-			Object image = d.get("image");
-			if (image instanceof String) {
-				String imageURL = TiConvert.toString(d, "image");
-				if (URLUtil.isNetworkUrl(imageURL)) {
-					synchronized(imageTokenGenerator) {
-						token = imageTokenGenerator.incrementAndGet();
-						getView().setImageDrawable(null);
-						new BgImageLoader(getProxy().getTiContext(), null, null, token).load(imageURL);
+		});
+		registerPropertyHandler(TiUIImageView.class, "enableZoomControls", new TiPropertyHandler<TiUIImageView>() {
+			public void propertyChanged(TiUIImageView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.getView().setEnableZoomControls(TiConvert.toBoolean(newValue));
+			}
+		});
+		// Registered after url, which may fill in image when the view is created
+		registerPropertyHandler(TiUIImageView.class, "image", new TiPropertyHandler<TiUIImageView>() {
+			public void propertyChanged(TiUIImageView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				if (newValue instanceof String) {
+					String imageURL = TiConvert.toString(newValue);
+					if (URLUtil.isNetworkUrl(imageURL)) {
+						view.loadRemoteImage(imageURL);
+					} else {
+						view.setImage(view.createBitmap(imageURL));
 					}
 				} else {
-					setImage(createBitmap(imageURL));
+					view.setImage(view.createBitmap(newValue));
 				}
-			} else {
-				setImage(createBitmap(image));
 			}
-			
-		} else {
-			getProxy().internalSetDynamicValue("image", null, false);
-		}
+		});
+	}
 
-		super.processProperties(d);
+	private void loadRemoteImage(String url)
+	{
+		synchronized(imageTokenGenerator) {
+			token = imageTokenGenerator.incrementAndGet();
+			Bitmap b = TiImageCache.getBitmap(getProxy().getTiContext().resolveUrl(null, url), 0, 0);
+			if (b != null) {
+				getView().setImageDrawable(new BitmapDrawable(b));
+				return;
+			}
+			getView().setImageDrawable(null);
+			new BgImageLoader(getProxy().getTiContext(), null, null, token).load(url);
+		}
 	}
 
 	@Override
-	public void propertyChanged(String key, Object oldValue, Object newValue, TiProxy proxy)
+	public void processProperties(TiDict d)
 	{
-		TiImageView view = getView();
-
-		if (key.equals("canScale")) {
-			view.setCanScaleImage(TiConvert.toBoolean(newValue));
-		} else if (key.equals("enableZoomControls")) {
-			view.setEnableZoomControls(TiConvert.toBoolean(newValue));
-		} else if (key.equals("url")) {
+		super.processProperties(d);
 
-			synchronized(imageTokenGenerator) {
-				token = imageTokenGenerator.incrementAndGet();
-				getView().setImageDrawable(null);
-				new BgImageLoader(getProxy().getTiContext(), null, null, token).load(TiConvert.toString(newValue));
-			}
-		} else if (key.equals("image")) {
-			Object image = newValue;
-			if (image instanceof String) {
-				String imageURL = TiConvert.toString(newValue);
-				if (URLUtil.isNetworkUrl(imageURL)) {
-					synchronized(imageTokenGenerator) {
-						token = imageTokenGenerator.incrementAndGet();
-						getView().setImageDrawable(null);
-						new BgImageLoader(getProxy().getTiContext(), null, null, token).load(imageURL);
-					}
-				} else {
-					setImage(createBitmap(imageURL));
-				}
-			} else {
-				setImage(createBitmap(image));
-			}
-		} else if (key.equals("images")) {
-			if (newValue instanceof Object[]) {
-				setImages((Object[])newValue);
-			}
-		} else {
-			super.propertyChanged(key, oldValue, newValue, proxy);
+		if (!d.containsKey("image")) {
+			getProxy().internalSetDynamicValue("image", null, false);
 		}
 	}
 
-
 	public void onDestroy() {
 	}
 
@@ -13,6 +13,7 @@ import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiUIHelper;
+import org.appcelerator.titanium.view.TiPropertyHandler;
 import org.appcelerator.titanium.view.TiUIView;
 
 import android.text.InputType;
@@ -36,67 +37,60 @@ public class TiUILabel extends TiUIView
 		setNativeView(tv);
 	}
 
+	static {
+		registerPropertyHandler(TiUILabel.class, "text", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.getTextView().setText(TiConvert.toString(newValue));
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUILabel.class, "color", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.getTextView().setTextColor(TiConvert.toColor(TiConvert.toString(newValue)));
+			}
+		});
+		registerPropertyHandler(TiUILabel.class, "highlightedColor", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.getTextView().setHighlightColor(TiConvert.toColor(TiConvert.toString(newValue)));
+			}
+		});
+		registerPropertyHandler(TiUILabel.class, "font", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				TiUIHelper.styleText(view.getTextView(), (TiDict) newValue);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUILabel.class, "textAlign", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				TiUIHelper.setAlignment(view.getTextView(), TiConvert.toString(newValue), null);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUILabel.class, "verticalAlign", new TiPropertyHandler<TiUILabel>() {
+			public void propertyChanged(TiUILabel view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				TiUIHelper.setAlignment(view.getTextView(), null, TiConvert.toString(newValue));
+				view.layoutNativeView();
+			}
+		});
+	}
+
+	private TextView getTextView() {
+		return (TextView) getNativeView();
+	}
+
 	@Override
 	public void processProperties(TiDict d)
 	{
 		super.processProperties(d);
 
-		TextView tv = (TextView) getNativeView();
+		TextView tv = getTextView();
 		// Only accept one, prefer text to title.
-		if (d.containsKey("text")) {
-			tv.setText(TiConvert.toString(d,"text"));
-		} else if (d.containsKey("title")) { //TODO this may not need to be supported.
+		if (!d.containsKey("text") && d.containsKey("title")) { //TODO this may not need to be supported.
 			tv.setText(TiConvert.toString(d,"title"));
 		}
-
-		if (d.containsKey("color")) {
-			tv.setTextColor(TiConvert.toColor(d, "color"));
-		}
-		if (d.containsKey("highlightedColor")) {
-			tv.setHighlightColor(TiConvert.toColor(d, "highlightedColor"));
-		}
-		if (d.containsKey("font")) {
-			TiUIHelper.styleText(tv, d.getTiDict("font"));
-		}
-		if (d.containsKey("textAlign")) {
-			String textAlign = d.getString("textAlign");
-			TiUIHelper.setAlignment(tv, textAlign, null);
-		}
-		if (d.containsKey("verticalAlign")) {
-			String verticalAlign = d.getString("verticalAlign");
-			TiUIHelper.setAlignment(tv, null, verticalAlign);
-		}
 		tv.invalidate();
 	}
 
-	@Override
-	public void propertyChanged(String key, Object oldValue, Object newValue, TiProxy proxy)
-	{
-		if (DBG) {
-			Log.d(LCAT, "Property: " + key + " old: " + oldValue + " new: " + newValue);
-		}
-		TextView tv = (TextView) getNativeView();
-		if (key.equals("text")) {
-			tv.setText(TiConvert.toString(newValue));
-			tv.requestLayout();
-		} else if (key.equals("color")) {
-			tv.setTextColor(TiConvert.toColor((String) newValue));
-		} else if (key.equals("highlightedColor")) {
-			tv.setHighlightColor(TiConvert.toColor((String) newValue));
-		} else if (key.equals("textAlign")) {
-			TiUIHelper.setAlignment(tv, TiConvert.toString(newValue), null);
-			tv.requestLayout();
-		} else if (key.equals("verticalAlign")) {
-			TiUIHelper.setAlignment(tv, null, TiConvert.toString(newValue));
-			tv.requestLayout();
-		} else if (key.equals("font")) {
-			TiUIHelper.styleText(tv, (TiDict) newValue);
-			tv.requestLayout();
-		} else {
-			super.propertyChanged(key, oldValue, newValue, proxy);
-		}
-	}
-
 	public void setClickable(boolean clickable) {
 		((TextView)getNativeView()).setClickable(clickable);
 	}
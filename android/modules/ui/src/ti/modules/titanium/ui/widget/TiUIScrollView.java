@@ -68,7 +68,7 @@ public class TiUIScrollView extends TiUIView {
 			LayoutParams p = getParams(child);
 			int contentWidth = getContentProperty("contentWidth");
 			if (contentWidth == AUTO) {
-				int childMeasuredWidth = child.getMeasuredWidth();
+				int childMeasuredWidth = measuredWidthOf(child, p);
 				if (!p.autoHeight) {
 					childMeasuredWidth = p.optionWidth;
 				}
@@ -92,7 +92,7 @@ public class TiUIScrollView extends TiUIView {
 			int contentHeight = getContentProperty("contentHeight");
 			
 			if (contentHeight == AUTO) {
-				int childMeasuredHeight = child.getMeasuredHeight();
+				int childMeasuredHeight = measuredHeightOf(child, p);
 				if (!p.autoHeight) {
 					childMeasuredHeight = p.optionHeight;
 				}
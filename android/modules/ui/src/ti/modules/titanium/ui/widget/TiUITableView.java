@@ -6,6 +6,7 @@
  */
 package ti.modules.titanium.ui.widget;
 
+import java.util.List;
 import java.util.concurrent.Semaphore;
 
 import org.appcelerator.titanium.TiDict;
@@ -19,6 +20,7 @@ import org.appcelerator.titanium.view.TiUIView;
 import org.json.JSONObject;
 
 import ti.modules.titanium.ui.TableViewProxy;
+import ti.modules.titanium.ui.TableViewRowProxy;
 import ti.modules.titanium.ui.ViewProxy;
 import ti.modules.titanium.ui.widget.searchbar.TiUISearchBar;
 import ti.modules.titanium.ui.widget.tableview.TableViewModel;
@@ -85,6 +87,30 @@ public class TiUITableView extends TiUIView
 		tableView.dataSetChanged();
 	}	
 
+	public void insertRows(int sectionIndex, int indexInSection, List<Object> rows) {
+		tableView.insertRows(sectionIndex, indexInSection, rows);
+	}
+
+	public void removeRow(int sectionIndex, int indexInSection) {
+		tableView.removeRow(sectionIndex, indexInSection);
+	}
+
+	public void updateRow(int sectionIndex, int indexInSection, Object row) {
+		tableView.updateRow(sectionIndex, indexInSection, row);
+	}
+
+	public void rowMaterialized(int sectionIndex, int indexInSection, TableViewRowProxy rowProxy) {
+		tableView.rowMaterialized(sectionIndex, indexInSection, rowProxy);
+	}
+
+	public void rowChanged(int sectionIndex, int indexInSection, String key) {
+		tableView.rowChanged(sectionIndex, indexInSection, key);
+	}
+
+	public TiDict getRecycleStats() {
+		return tableView.getRecycleStats();
+	}
+
 	public void scrollToIndex(final int index) {
 		tableView.getListView().setSelection(index);
 	}
@@ -7,6 +7,7 @@
 package ti.modules.titanium.ui.widget.tableview;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import org.appcelerator.titanium.TiContext;
 import org.appcelerator.titanium.TiDict;
@@ -33,6 +34,73 @@ public class TableViewModel
             return headerText != null;
         }
 
+        /**
+         * @return whether this is a row of a templated table still bound from its data,
+         * proxy is null until {@link TableViewModel#materialize} is called for it.
+         */
+        public boolean isDataRow() {
+            return proxy == null;
+        }
+
+        public boolean hasValue(String key) {
+            if (proxy != null) {
+                return proxy.hasDynamicValue(key);
+            }
+            return ((TiDict) rowData).containsKey(key) || (template != null && template.containsKey(key));
+        }
+
+        public Object getValue(String key) {
+            if (proxy != null) {
+                return proxy.getDynamicValue(key);
+            }
+            TiDict data = (TiDict) rowData;
+            if (data.containsKey(key) || template == null) {
+                return data.get(key);
+            }
+            return template.get(key);
+        }
+
+        /**
+         * @return the row's properties, for data rows a copy of the template with the data over it.
+         */
+        public TiDict getProperties() {
+            if (proxy != null) {
+                return proxy.getDynamicProperties();
+            }
+            TiDict d = template != null ? new TiDict(template) : new TiDict();
+            d.putAll((TiDict) rowData);
+            return d;
+        }
+
+        public TableViewProxy getTable() {
+            return TableViewModel.this.proxy;
+        }
+
+        /**
+         * @return the className, followed by the structure of the row's controls if it has
+         * any. Row views are only recycled between items with equal signatures.
+         */
+        public String getLayoutSignature() {
+            String controls = null;
+            if (proxy instanceof TableViewRowProxy) {
+                controls = ((TableViewRowProxy) proxy).getControlsSignature();
+            }
+            // The row drops its controls signature when controls are added or removed
+            if (layoutSignature == null || controls != controlsSignature) {
+                controlsSignature = controls;
+                layoutSignature = controls != null ? className + ':' + controls : className;
+            }
+            return layoutSignature;
+        }
+
+        /**
+         * Forgets the cached heights after the row's properties changed.
+         */
+        public void invalidateHeight() {
+            measuredHeight = -1;
+            rowHeight = ROW_HEIGHT_UNRESOLVED;
+        }
+
         public int index;
         public int sectionIndex;
         public int indexInSection;
@@ -42,15 +110,34 @@ public class TableViewModel
         public String className;
         public TiViewProxy proxy;
         public Object rowData;
+        public TiDict template;
+
+        private String layoutSignature;
+        private String controlsSignature;
+        private int rowHeight = ROW_HEIGHT_UNRESOLVED;
+        // Height the row view measured at measuredWidth for the properties hashed to measuredKey.
+        int measuredWidth;
+        int measuredHeight = -1;
+        int measuredKey;
     }
 
+    private static final int ROW_HEIGHT_UNRESOLVED = -2;
+
     private TiContext tiContext;
     private TableViewProxy proxy;
 
     private boolean dirty;
+    // Bumped whenever positions in the view model change, see TableViewSearchIndex.
+    private int generation;
 
     private ArrayList<Item> viewModel;
 
+    // Where each section starts in the flat view, kept with the view model so row edits
+    // don't need a rebuild. The entry after the last section holds the totals.
+    private int sectionCount;
+    private int[] sectionRowStart;
+    private int[] sectionFirstPosition;
+
     // The unstructured set of data. Modifier operations are treated as edits to this
     // and the section structure.
 
@@ -59,13 +146,15 @@ public class TableViewModel
         this.proxy = proxy;
 
         viewModel = new ArrayList<Item>();
+        sectionRowStart = new int[1];
+        sectionFirstPosition = new int[1];
         dirty = true;
     }
 
     private String classNameForRow(TableViewRowProxy rowProxy) {
         String className = TiConvert.toString(rowProxy.getDynamicValue("className"));
         if (className == null) {
-        	className = TableViewProxy.CLASSNAME_DEFAULT;
+            className = TableViewProxy.CLASSNAME_DEFAULT;
         }
         return className;
     }
@@ -89,41 +178,62 @@ public class TableViewModel
             newItem.rowData = rowProxy;
             String className = TiConvert.toString(rowProxy.getDynamicValue("className"));
             if (className == null) {
-            	className = TableViewProxy.CLASSNAME_DEFAULT;
+                className = TableViewProxy.CLASSNAME_DEFAULT;
             }
             newItem.className = className;
         } else if (data instanceof TableViewSectionProxy) {
-        	newItem.proxy = (TableViewSectionProxy) data;
+            newItem.proxy = (TableViewSectionProxy) data;
         } else {
-        	throw new IllegalStateException("Un-implemented type: " + (data != null ? data.getClass().getSimpleName() : null));
+            throw new IllegalStateException("Un-implemented type: " + (data != null ? data.getClass().getSimpleName() : null));
         }
 
         return newItem;
     }
 
-    private Item itemForHeader(int index, TableViewSectionProxy proxy, String headerText, String footerText) {
-    	Item newItem = new Item(index);
-    	newItem.className = TableViewProxy.CLASSNAME_HEADER;
-    	if (headerText != null) {
-    		newItem.headerText = headerText;
-    	} else if (footerText != null) {
-    		newItem.footerText = footerText;
-    	}
-    	newItem.proxy = proxy;
+    private Item itemForRow(int index, int sectionIndex, int indexInSection, Object row) {
+        Item item = new Item(index);
+        item.sectionIndex = sectionIndex;
+        item.indexInSection = indexInSection;
+        if (row instanceof TableViewRowProxy) {
+            TableViewRowProxy rowProxy = (TableViewRowProxy) row;
+            item.proxy = rowProxy;
+            item.rowData = rowProxy; // TODO capture dictionary?
+            item.className = classNameForRow(rowProxy);
+        } else {
+            item.rowData = row;
+            item.template = proxy.getRowTemplate();
+            item.className = TiConvert.toString(item.getValue("className"));
+            if (item.className == null) {
+                item.className = TableViewProxy.CLASSNAME_NORMAL;
+            }
+        }
+        return item;
+    }
+
+    private Item itemForHeader(int index, int sectionIndex, TableViewSectionProxy proxy, String headerText, String footerText) {
+        Item newItem = new Item(index);
+        newItem.sectionIndex = sectionIndex;
+        newItem.className = TableViewProxy.CLASSNAME_HEADER;
+        if (headerText != null) {
+            newItem.headerText = headerText;
+        } else if (footerText != null) {
+            newItem.footerText = footerText;
+        }
+        newItem.proxy = proxy;
 
-    	return newItem;
+        return newItem;
     }
 
     public int getRowCount() {
-    	if (viewModel == null) {
-    		return 0;
-    	}
-    	return viewModel.size();
+        if (viewModel == null) {
+            return 0;
+        }
+        return viewModel.size();
     }
 
     public TableViewSectionProxy getSection(int index)
     {
-    	return proxy.getSections().get(index);
+        return proxy.getSections().get(index);
     }
     
     public ArrayList<Item> getViewModel()
@@ -137,52 +247,210 @@ public class TableViewModel
 
             ArrayList<TableViewSectionProxy> sections = proxy.getSections();
             if (sections != null) {
+                if (sectionRowStart.length <= sections.size()) {
+                    sectionRowStart = new int[sections.size() + 1];
+                    sectionFirstPosition = new int[sections.size() + 1];
+                }
 
-	            for (TableViewSectionProxy section : sections) {
-	            	String headerTitle = TiConvert.toString(section.getDynamicValue("headerTitle"));
-	            	if (headerTitle != null) {
-	            		viewModel.add(itemForHeader(index, section, headerTitle, null));
-	            	}
-	            	for (TableViewRowProxy row : section.getRows()) {
-	            		Item item = new Item(index);
-	            		item.sectionIndex = sectionIndex;
-	            		item.indexInSection = indexInSection;
-	            		item.proxy = row;
-	            		item.rowData = row; // TODO capture dictionary?
-	            		item.className = classNameForRow(row);
-
-	            		viewModel.add(item);
-	            		index++;
-	            		indexInSection++;
-	            	}
-
-	            	String footerTitle = TiConvert.toString(section.getDynamicValue("footerTitle"));
-	            	if (footerTitle != null) {
-	            		viewModel.add(itemForHeader(index, section, null, footerTitle));
-	            	}
-
-	            	sectionIndex++;
-	            	indexInSection = 0;
-	            }
-	            dirty = false;
-	        }
+                for (TableViewSectionProxy section : sections) {
+                    String headerTitle = TiConvert.toString(section.getDynamicValue("headerTitle"));
+                    if (headerTitle != null) {
+                        viewModel.add(itemForHeader(index, sectionIndex, section, headerTitle, null));
+                    }
+                    sectionRowStart[sectionIndex] = index;
+                    sectionFirstPosition[sectionIndex] = viewModel.size();
+
+                    int rowCount = (int) section.getRowCount();
+                    for (int i = 0; i < rowCount; i++) {
+                        viewModel.add(itemForRow(index, sectionIndex, indexInSection, section.peekRow(i)));
+                        index++;
+                        indexInSection++;
+                    }
+
+                    String footerTitle = TiConvert.toString(section.getDynamicValue("footerTitle"));
+                    if (footerTitle != null) {
+                        viewModel.add(itemForHeader(index, sectionIndex, section, null, footerTitle));
+                    }
+
+                    sectionIndex++;
+                    indexInSection = 0;
+                }
+                sectionCount = sectionIndex;
+                sectionRowStart[sectionCount] = index;
+                sectionFirstPosition[sectionCount] = viewModel.size();
+                generation++;
+                dirty = false;
+            }
         }
         return viewModel;
     }
 
+    /**
+     * @return the view position of the row at index, or of its section's header when it is
+     * the first row of a section with one, so scrolling there shows the header. -1 when the
+     * index is out of range or the model needs a rebuild.
+     */
     public int getViewIndex(int index) {
-        int position = -1;
-        // the View index can be larger than model index if there are headers.
-        if (viewModel != null && index <= viewModel.size()) {
-            for(int i = 0; i < viewModel.size(); i++) {
-                Item item = viewModel.get(i);
-                if (index == item.index) {
-                    position = i;
-                    break;
-                }
+        int sectionIndex = getSectionOfRow(index);
+        if (sectionIndex < 0) {
+            return -1;
+        }
+
+        int position = sectionFirstPosition[sectionIndex] + index - sectionRowStart[sectionIndex];
+        if (position > 0 && index == sectionRowStart[sectionIndex] && viewModel.get(position - 1).hasHeader()) {
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * @return the section holding the row at index, -1 when out of range or dirty.
+     */
+    public int getSectionOfRow(int index) {
+        if (dirty || index < 0 || index >= sectionRowStart[sectionCount]) {
+            return -1;
+        }
+
+        // Last section starting at or before index, empty sections share their start with
+        // the next one so this always lands on the section that holds the row.
+        int low = 0;
+        int high = sectionCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sectionRowStart[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        return low - 1;
+    }
 
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getFirstRowOfSection(int sectionIndex) {
+        return sectionRowStart[sectionIndex];
+    }
+
+    /**
+     * @return the view position of a row, or -1 if the model needs a rebuild.
+     */
+    public int getPosition(int sectionIndex, int indexInSection) {
+        if (dirty || sectionIndex >= sectionCount) {
+            return -1;
+        }
+        return sectionFirstPosition[sectionIndex] + indexInSection;
+    }
+
+    /**
+     * Adds items for rows inserted into a section the model already has.
+     * @return the view position of the first new item, or -1 if the model needs a rebuild.
+     */
+    public int insertRows(int sectionIndex, int indexInSection, List<Object> rows)
+    {
+        if (dirty || sectionIndex >= sectionCount) {
+            return -1;
+        }
+
+        int count = rows.size();
+        int index = sectionRowStart[sectionIndex] + indexInSection;
+        int position = sectionFirstPosition[sectionIndex] + indexInSection;
+
+        ArrayList<Item> items = new ArrayList<Item>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(itemForRow(index + i, sectionIndex, indexInSection + i, rows.get(i)));
+        }
+        viewModel.addAll(position, items);
+        shift(position + count, sectionIndex, count);
+        generation++;
+        return position;
+    }
+
+    /**
+     * @return the view position the row was removed from, or -1 if the model needs a rebuild.
+     */
+    public int removeRow(int sectionIndex, int indexInSection)
+    {
+        if (dirty || sectionIndex >= sectionCount) {
+            return -1;
+        }
+
+        int position = sectionFirstPosition[sectionIndex] + indexInSection;
+        viewModel.remove(position);
+        shift(position, sectionIndex, -1);
+        generation++;
+        return position;
+    }
+
+    /**
+     * @return the view position of the replaced row, or -1 if the model needs a rebuild.
+     */
+    public int updateRow(int sectionIndex, int indexInSection, Object row)
+    {
+        if (dirty || sectionIndex >= sectionCount) {
+            return -1;
+        }
+
+        int position = sectionFirstPosition[sectionIndex] + indexInSection;
+        viewModel.set(position, itemForRow(sectionRowStart[sectionIndex] + indexInSection,
+            sectionIndex, indexInSection, row));
+        generation++;
+        return position;
+    }
+
+    // Moves everything after an edit by delta rows. Items are renumbered in place because
+    // row views hold on to theirs for click events.
+    private void shift(int position, int sectionIndex, int delta)
+    {
+        for (int i = sectionIndex + 1; i <= sectionCount; i++) {
+            sectionRowStart[i] += delta;
+            sectionFirstPosition[i] += delta;
+        }
+
+        int sectionEnd = sectionFirstPosition[sectionIndex]
+            + sectionRowStart[sectionIndex + 1] - sectionRowStart[sectionIndex];
+        int size = viewModel.size();
+        for (int i = position; i < size; i++) {
+            Item item = viewModel.get(i);
+            item.index += delta;
+            if (i < sectionEnd) {
+                item.indexInSection += delta;
+            }
+        }
+    }
+
+    /**
+     * @return the proxy of a row item, creating it first if the item is still bound from data.
+     * Must be called on the UI thread.
+     */
+    public TableViewRowProxy materialize(Item item)
+    {
+        if (item.proxy == null) {
+            // The section reports the new proxy back through rowMaterialized
+            TableViewRowProxy rowProxy = getSection(item.sectionIndex).rowAtIndex(item.indexInSection);
+            item.proxy = rowProxy;
+            item.template = null;
+        }
+        return (TableViewRowProxy) item.proxy;
+    }
+
+    /**
+     * Points a data row's item at the proxy its section just created for it. The item keeps
+     * its data as rowData for click events.
+     * @return the view position of the row, or -1 if the model needs a rebuild.
+     */
+    public int rowMaterialized(int sectionIndex, int indexInSection, TableViewRowProxy rowProxy)
+    {
+        if (dirty || sectionIndex >= sectionCount) {
+            return -1;
+        }
+
+        int position = sectionFirstPosition[sectionIndex] + indexInSection;
+        Item item = viewModel.get(position);
+        item.proxy = rowProxy;
+        item.template = null;
         return position;
     }
 
@@ -190,15 +458,18 @@ public class TableViewModel
         int rowHeight = defaultHeight;
 
         Item item = viewModel.get(position);
-        Object rh = item.proxy.getDynamicValue("rowHeight");
-        if (rh != null) {
-        	rowHeight = TiConvert.toInt(rh);
+        if (item.rowHeight == ROW_HEIGHT_UNRESOLVED) {
+            Object rh = item.getValue("rowHeight");
+            item.rowHeight = rh != null ? TiConvert.toInt(rh) : -1;
+        }
+        if (item.rowHeight != -1) {
+            rowHeight = item.rowHeight;
         }
 
         return rowHeight;
     }
 
-	public void setDirty() {
-		dirty = true;
-	}
+    public void setDirty() {
+        dirty = true;
+    }
  }
@@ -0,0 +1,68 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget.tableview;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.appcelerator.titanium.TiDict;
+
+/**
+ * Counts how often a table's row views are recycled and their heights reused. A low
+ * recycle rate means rows sharing a className differ in structure, see
+ * {@link TableViewModel.Item#getLayoutSignature()}.
+ */
+public class TableViewRecycleStats
+{
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong recycled = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong heightHits = new AtomicLong();
+	private final AtomicLong heightMisses = new AtomicLong();
+
+	void viewCreated() {
+		created.incrementAndGet();
+	}
+
+	void viewRecycled() {
+		recycled.incrementAndGet();
+	}
+
+	/**
+	 * The list offered a view that couldn't take the row, one is created instead.
+	 */
+	void viewRejected() {
+		rejected.incrementAndGet();
+	}
+
+	void heightMeasured(boolean cached)
+	{
+		if (cached) {
+			heightHits.incrementAndGet();
+		} else {
+			heightMisses.incrementAndGet();
+		}
+	}
+
+	private static double rate(long hits, long misses) {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public TiDict toDict(int viewTypes)
+	{
+		TiDict d = new TiDict();
+		d.putInt("viewTypes", viewTypes);
+		d.put("created", created.get());
+		d.put("recycled", recycled.get());
+		d.put("rejected", rejected.get());
+		d.putDouble("recycleRate", rate(recycled.get(), created.get()));
+		d.put("heightHits", heightHits.get());
+		d.put("heightMisses", heightMisses.get());
+		d.putDouble("heightHitRate", rate(heightHits.get(), heightMisses.get()));
+		return d;
+	}
+}
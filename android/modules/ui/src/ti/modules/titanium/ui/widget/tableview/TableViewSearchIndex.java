@@ -0,0 +1,442 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package ti.modules.titanium.ui.widget.tableview;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The filter attribute of every item in a table's view model, for the search bar.
+ *
+ * Texts are normalized once per index instead of on every keystroke, a trigram index is
+ * built the first time a query is long enough to use it, and the results of recent queries
+ * are kept so that a query containing one of them only rechecks that result. The index is
+ * created on the UI thread, filter() may then run on any thread. Row edits update the
+ * postings and cached results of the edited rows in place and shift the positions after
+ * them, returning a new index for the new model generation. The index it was derived from
+ * shares that state and returns null from filter() from then on.
+ */
+public class TableViewSearchIndex
+{
+	private static final int GRAM = 3;
+	private static final int MAX_RESULTS = 8;
+	private static final int[] EMPTY = new int[0];
+
+	private static class Postings
+	{
+		int[] positions = new int[4];
+		int count;
+
+		// Appends while building, positions arrive in increasing order.
+		void add(int position)
+		{
+			if (count > 0 && positions[count - 1] == position) {
+				return;
+			}
+			if (count == positions.length) {
+				grow();
+			}
+			positions[count++] = position;
+		}
+
+		void insert(int position)
+		{
+			int i = search(position);
+			if (i >= 0) {
+				return;
+			}
+			i = -(i + 1);
+			if (count == positions.length) {
+				grow();
+			}
+			System.arraycopy(positions, i, positions, i + 1, count - i);
+			positions[i] = position;
+			count++;
+		}
+
+		void remove(int position)
+		{
+			int i = search(position);
+			if (i >= 0) {
+				System.arraycopy(positions, i + 1, positions, i, count - i - 1);
+				count--;
+			}
+		}
+
+		// Adds delta to every position at or after from.
+		void shift(int from, int delta)
+		{
+			for (int i = count - 1; i >= 0 && positions[i] >= from; i--) {
+				positions[i] += delta;
+			}
+		}
+
+		private int search(int position)
+		{
+			int lo = 0;
+			int hi = count - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if (positions[mid] < position) {
+					lo = mid + 1;
+				} else if (positions[mid] > position) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -(lo + 1);
+		}
+
+		private void grow()
+		{
+			int[] grown = new int[positions.length * 2];
+			System.arraycopy(positions, 0, grown, 0, count);
+			positions = grown;
+		}
+	}
+
+	// Shared by an index and the ones derived from it, guarded by its own lock.
+	private static class State
+	{
+		int generation;
+
+		// Filter text for each view position, null for items without the attribute, which
+		// stay visible whatever the query.
+		ArrayList<String> texts;
+		boolean normalized;
+
+		HashMap<Long, Postings> grams;
+		Postings unfiltered;
+
+		LinkedHashMap<String, int[]> results;
+	}
+
+	private final int generation;
+	private final String attribute;
+	private final boolean caseInsensitive;
+	private final State state;
+
+	/**
+	 * @param generation the view model generation texts was read at.
+	 * @param texts each item's raw attribute value, null if it doesn't have one.
+	 */
+	public TableViewSearchIndex(int generation, String attribute, boolean caseInsensitive, String[] texts)
+	{
+		this.generation = generation;
+		this.attribute = attribute;
+		this.caseInsensitive = caseInsensitive;
+
+		state = new State();
+		state.generation = generation;
+		state.texts = new ArrayList<String>(texts.length);
+		for (int i = 0; i < texts.length; i++) {
+			state.texts.add(texts[i]);
+		}
+		state.results = new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+				return size() > MAX_RESULTS;
+			}
+		};
+	}
+
+	private TableViewSearchIndex(TableViewSearchIndex previous, int generation)
+	{
+		this.generation = generation;
+		this.attribute = previous.attribute;
+		this.caseInsensitive = previous.caseInsensitive;
+		this.state = previous.state;
+		state.generation = generation;
+	}
+
+	public int getGeneration() {
+		return generation;
+	}
+
+	public boolean isFor(String attribute, boolean caseInsensitive) {
+		return this.caseInsensitive == caseInsensitive && this.attribute.equals(attribute);
+	}
+
+	private String normalize(String text)
+	{
+		if (text != null && caseInsensitive) {
+			return text.toLowerCase();
+		}
+		return text;
+	}
+
+	private void normalizeTexts()
+	{
+		if (!state.normalized) {
+			if (caseInsensitive) {
+				ArrayList<String> texts = state.texts;
+				for (int i = 0; i < texts.size(); i++) {
+					texts.set(i, normalize(texts.get(i)));
+				}
+			}
+			state.normalized = true;
+		}
+	}
+
+	private static Long gramAt(String text, int i) {
+		return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+	}
+
+	private void buildGrams()
+	{
+		state.grams = new HashMap<Long, Postings>();
+		state.unfiltered = new Postings();
+		for (int position = 0; position < state.texts.size(); position++) {
+			addGrams(position, state.texts.get(position), false);
+		}
+	}
+
+	private void addGrams(int position, String text, boolean insert)
+	{
+		if (text == null) {
+			if (insert) {
+				state.unfiltered.insert(position);
+			} else {
+				state.unfiltered.add(position);
+			}
+			return;
+		}
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			Long gram = gramAt(text, i);
+			Postings postings = state.grams.get(gram);
+			if (postings == null) {
+				postings = new Postings();
+				state.grams.put(gram, postings);
+			}
+			if (insert) {
+				postings.insert(position);
+			} else {
+				postings.add(position);
+			}
+		}
+	}
+
+	private void removeGrams(int position, String text)
+	{
+		if (text == null) {
+			state.unfiltered.remove(position);
+			return;
+		}
+		for (int i = 0; i + GRAM <= text.length(); i++) {
+			Long gram = gramAt(text, i);
+			Postings postings = state.grams.get(gram);
+			if (postings != null) {
+				postings.remove(position);
+				if (postings.count == 0) {
+					state.grams.remove(gram);
+				}
+			}
+		}
+	}
+
+	private void shiftGrams(int from, int delta)
+	{
+		for (Postings postings : state.grams.values()) {
+			postings.shift(from, delta);
+		}
+		state.unfiltered.shift(from, delta);
+	}
+
+	/**
+	 * @return the ascending view positions of the items matching query, or null if the
+	 * rows were edited since this index was created. The array is shared with later calls
+	 * and must not be modified.
+	 */
+	public int[] filter(String query)
+	{
+		synchronized (state) {
+			if (state.generation != generation) {
+				return null;
+			}
+
+			normalizeTexts();
+			query = normalize(query);
+
+			int[] result = state.results.get(query);
+			if (result != null) {
+				return result;
+			}
+
+			// Anything matching query also matches every query it contains.
+			int[] base = null;
+			int baseLength = -1;
+			for (Map.Entry<String, int[]> e : state.results.entrySet()) {
+				String previous = e.getKey();
+				if (previous.length() > baseLength && query.indexOf(previous) >= 0) {
+					base = e.getValue();
+					baseLength = previous.length();
+				}
+			}
+
+			if (base != null) {
+				result = match(query, base, base.length, null, 0);
+			} else if (query.length() >= GRAM) {
+				if (state.grams == null) {
+					buildGrams();
+				}
+				Postings rarest = null;
+				for (int i = 0; i + GRAM <= query.length(); i++) {
+					Postings postings = state.grams.get(gramAt(query, i));
+					if (postings == null) {
+						rarest = null;
+						break;
+					}
+					if (rarest == null || postings.count < rarest.count) {
+						rarest = postings;
+					}
+				}
+				Postings unfiltered = state.unfiltered;
+				if (rarest == null) {
+					result = match(query, unfiltered.positions, unfiltered.count, null, 0);
+				} else {
+					result = match(query, rarest.positions, rarest.count, unfiltered.positions, unfiltered.count);
+				}
+			} else {
+				result = match(query, null, state.texts.size(), null, 0);
+			}
+
+			state.results.put(query, result);
+			return result;
+		}
+	}
+
+	private static boolean matches(String query, String text) {
+		return text == null || text.indexOf(query) >= 0;
+	}
+
+	// Checks the union of two ascending candidate lists, a null first list means every position.
+	private int[] match(String query, int[] a, int aCount, int[] b, int bCount)
+	{
+		int[] matched = new int[aCount + bCount];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < aCount || j < bCount) {
+			int position;
+			if (j >= bCount || (i < aCount && (a == null ? i : a[i]) < b[j])) {
+				position = a == null ? i : a[i];
+				i++;
+			} else {
+				position = b[j];
+				j++;
+			}
+			if (matches(query, state.texts.get(position))) {
+				matched[count++] = position;
+			}
+		}
+
+		if (count == 0) {
+			return EMPTY;
+		}
+		if (count < matched.length) {
+			int[] trimmed = new int[count];
+			System.arraycopy(matched, 0, trimmed, 0, count);
+			matched = trimmed;
+		}
+		return matched;
+	}
+
+	/**
+	 * Moves the cached results past an edit that replaced removed rows at position with
+	 * added ones, checking the added rows against each query. Results are shared with
+	 * callers so each one is replaced, not modified.
+	 */
+	private void patchResults(int position, int removed, int added)
+	{
+		for (Map.Entry<String, int[]> e : state.results.entrySet()) {
+			String query = e.getKey();
+			int[] old = e.getValue();
+			int[] patched = new int[old.length + added];
+			int count = 0;
+			int i = 0;
+			for (; i < old.length && old[i] < position; i++) {
+				patched[count++] = old[i];
+			}
+			for (int p = position; p < position + added; p++) {
+				if (matches(query, state.texts.get(p))) {
+					patched[count++] = p;
+				}
+			}
+			for (; i < old.length; i++) {
+				if (old[i] >= position + removed) {
+					patched[count++] = old[i] - removed + added;
+				}
+			}
+
+			if (count == 0) {
+				patched = EMPTY;
+			} else if (count < patched.length) {
+				int[] trimmed = new int[count];
+				System.arraycopy(patched, 0, trimmed, 0, count);
+				patched = trimmed;
+			}
+			e.setValue(patched);
+		}
+	}
+
+	/**
+	 * @return an index for the model after rows with the given raw texts were inserted at position.
+	 */
+	public TableViewSearchIndex inserted(int generation, int position, String[] added)
+	{
+		synchronized (state) {
+			for (int i = 0; i < added.length; i++) {
+				state.texts.add(position + i, state.normalized ? normalize(added[i]) : added[i]);
+			}
+			if (state.grams != null) {
+				shiftGrams(position, added.length);
+				for (int i = 0; i < added.length; i++) {
+					addGrams(position + i, state.texts.get(position + i), true);
+				}
+			}
+			if (!state.results.isEmpty()) {
+				patchResults(position, 0, added.length);
+			}
+			return new TableViewSearchIndex(this, generation);
+		}
+	}
+
+	public TableViewSearchIndex removed(int generation, int position)
+	{
+		synchronized (state) {
+			String text = state.texts.remove(position);
+			if (state.grams != null) {
+				removeGrams(position, text);
+				shiftGrams(position + 1, -1);
+			}
+			if (!state.results.isEmpty()) {
+				patchResults(position, 1, 0);
+			}
+			return new TableViewSearchIndex(this, generation);
+		}
+	}
+
+	public TableViewSearchIndex updated(int generation, int position, String text)
+	{
+		synchronized (state) {
+			String old = state.texts.set(position, state.normalized ? normalize(text) : text);
+			if (state.grams != null) {
+				removeGrams(position, old);
+				addGrams(position, state.texts.get(position), true);
+			}
+			if (!state.results.isEmpty()) {
+				patchResults(position, 1, 1);
+			}
+			return new TableViewSearchIndex(this, generation);
+		}
+	}
+}
@@ -7,6 +7,7 @@
 package ti.modules.titanium.ui.widget.tableview;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.appcelerator.titanium.TiContext;
 import org.appcelerator.titanium.TiDict;
@@ -16,9 +17,11 @@ import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
 import org.appcelerator.titanium.util.TiConvert;
 import org.appcelerator.titanium.util.TiFileHelper;
+import org.appcelerator.titanium.util.TiImageCache;
 import org.appcelerator.titanium.util.TiUIHelper;
 
 import ti.modules.titanium.ui.widget.tableview.TableViewModel.Item;
+import android.graphics.Bitmap;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.ShapeDrawable;
@@ -36,6 +39,7 @@ public abstract class TiBaseTableViewItem extends ViewGroup implements Handler.C
 	protected TiContext tiContext;
 	protected TiFileHelper tfh;
 	protected String className;
+	protected String layoutSignature;
 
 	public TiBaseTableViewItem(TiContext tiContext)
 	{
@@ -60,12 +64,36 @@ public abstract class TiBaseTableViewItem extends ViewGroup implements Handler.C
 		return null;
 	}
 
+	// Every row shows the same few accessory images, decode them once.
+	private static Bitmap resourceBitmap(String path)
+	{
+		Bitmap b = TiImageCache.getBitmap(path, 0, 0);
+		if (b == null) {
+			InputStream is = TiDict.class.getResourceAsStream(path);
+			if (is == null) {
+				Log.w(LCAT, "Missing resource " + path);
+				return null;
+			}
+			try {
+				b = TiUIHelper.createBitmap(is);
+			} finally {
+				try {
+					is.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+			TiImageCache.putBitmap(path, 0, 0, b);
+		}
+		return b;
+	}
+
 	public BitmapDrawable createHasChildDrawable() {
-		return new BitmapDrawable(TiDict.class.getResourceAsStream("/org/appcelerator/titanium/res/drawable/btn_more.png"));
+		return new BitmapDrawable(resourceBitmap("/org/appcelerator/titanium/res/drawable/btn_more.png"));
 	}
 	
 	public BitmapDrawable createHasCheckDrawable() {
-		return new BitmapDrawable(TiDict.class.getResourceAsStream("/org/appcelerator/titanium/res/drawable/btn_check_buttonless_on.png"));
+		return new BitmapDrawable(resourceBitmap("/org/appcelerator/titanium/res/drawable/btn_check_buttonless_on.png"));
 	}
 
 	public Drawable loadDrawable(String url) {
@@ -82,14 +110,29 @@ public abstract class TiBaseTableViewItem extends ViewGroup implements Handler.C
 	public void setClassName(String className) {
 		this.className = className;
 	}
+
+	public String getLayoutSignature() {
+		return layoutSignature;
+	}
+
+	public void setLayoutSignature(String layoutSignature) {
+		this.layoutSignature = layoutSignature;
+	}
 	
 	public void setBackgroundImageProperty(TiDict d, String property)
 	{
 		String path = TiConvert.toString(d, property);
 		String url = tiContext.resolveUrl(null, path);
+		Bitmap b = TiImageCache.getBitmap(url, 0, 0);
+		if (b != null) {
+			setBackgroundDrawable(new BitmapDrawable(b));
+			return;
+		}
 		TiBaseFile file = TiFileFactory.createTitaniumFile(tiContext, new String[] { url }, false);
 		try {
-			setBackgroundDrawable(new BitmapDrawable(TiUIHelper.createBitmap(file.getInputStream())));
+			b = TiUIHelper.createBitmap(file.getInputStream());
+			TiImageCache.putBitmap(url, 0, 0, b);
+			setBackgroundDrawable(new BitmapDrawable(b));
 		} catch (IOException e) {
 			Log.e(LCAT, "Error creating background image from path: " + path.toString(), e);
 		}
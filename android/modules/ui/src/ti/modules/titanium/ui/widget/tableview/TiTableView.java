@@ -8,6 +8,7 @@ package ti.modules.titanium.ui.widget.tableview;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -23,6 +24,7 @@ import org.appcelerator.titanium.view.TiCompositeLayout;
 import org.appcelerator.titanium.view.TiUIView;
 
 import ti.modules.titanium.ui.TableViewProxy;
+import ti.modules.titanium.ui.TableViewRowProxy;
 import ti.modules.titanium.ui.widget.searchbar.TiUISearchBar.OnSearchChangeListener;
 import ti.modules.titanium.ui.widget.tableview.TableViewModel.Item;
 import android.graphics.Canvas;
@@ -30,6 +32,7 @@ import android.graphics.Color;
 import android.graphics.Rect;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.view.KeyEvent;
 import android.view.View;
 import android.view.ViewGroup;
@@ -64,20 +67,61 @@ public class TiTableView extends FrameLayout
 	private TiContext tiContext;
 	private TableViewProxy proxy;
 	private boolean filterCaseInsensitive = true;
+	private TableViewSearchIndex searchIndex;
+	private TableViewRecycleStats stats = new TableViewRecycleStats();
+	private FilterTask filterTask;
 
 	public interface OnItemClickedListener {
 		public void onClick(TiDict item);
 	}
 
+	// Filters on a background thread, the result is only shown if neither the query nor the
+	// rows changed in the meantime.
+	class FilterTask extends AsyncTask<Void, Void, int[]>
+	{
+		private TableViewSearchIndex index;
+		private String query;
+
+		FilterTask(TableViewSearchIndex index, String query) {
+			this.index = index;
+			this.query = query;
+		}
+
+		@Override
+		protected int[] doInBackground(Void... args) {
+			return index.filter(query);
+		}
+
+		@Override
+		protected void onPostExecute(int[] positions)
+		{
+			if (filterTask != this) {
+				return;
+			}
+			filterTask = null;
+
+			if (index != searchIndex || index.getGeneration() != viewModel.getGeneration()
+				|| !query.equals(filterText))
+			{
+				startFilter();
+			} else {
+				adapter.filterFinished(positions);
+			}
+		}
+	}
+
 	class TTVListAdapter extends BaseAdapter
 	{
 		TableViewModel viewModel;
-		ArrayList<Integer> index;
+		// View model positions of the items shown while filtered, in order.
+		int[] index;
+		int indexCount;
 		private boolean filtered;
+		private String filter;
 
 		TTVListAdapter(TableViewModel viewModel) {
 			this.viewModel = viewModel;
-			this.index = new ArrayList<Integer>(viewModel.getRowCount());
+			this.index = new int[16];
 			applyFilter();
 		}
 
@@ -87,75 +131,184 @@ public class TiTableView extends FrameLayout
 
 			ArrayList<Item> items = viewModel.getViewModel();
 			int count = items.size();
+			for(int i = 0; i < count; i++) {
+				classChange |= registerLayout(items.get(i));
+			}
 
-			index.clear();
-			filtered = false;
+			if (isFiltering()) {
+				setIndex(getSearchIndex().filter(filterText));
+			} else {
+				indexCount = 0;
+				filtered = false;
+				filter = null;
+			}
 
-			if (filterAttribute != null && filterText != null && filterAttribute.length() > 0 && filterText.length() > 0) {
-				filtered = true;
+			if (classChange) {
+				listView.setAdapter(this);
+			}
+		}
 
-				String filter = filterText;
+		private void setIndex(int[] positions)
+		{
+			filtered = true;
+			filter = filterCaseInsensitive ? filterText.toLowerCase() : filterText;
+			if (index.length < positions.length) {
+				index = new int[positions.length];
+			}
+			System.arraycopy(positions, 0, index, 0, positions.length);
+			indexCount = positions.length;
+		}
+
+		/**
+		 * Shows the result of a background filter, positions must be for the current model.
+		 */
+		void filterFinished(int[] positions)
+		{
+			setIndex(positions);
+			changed(false);
+		}
+
+		private boolean registerLayout(Item item)
+		{
+			String signature = item.getLayoutSignature();
+			if (!rowTypes.containsKey(signature)) {
+				if (DBG) {
+					Log.i(LCAT, "Adding row layout " + signature);
+				}
+				rowTypes.put(signature, rowTypeCounter.incrementAndGet());
+				return true;
+			}
+			return false;
+		}
+
+		private boolean matchesFilter(Item item)
+		{
+			String t = filterTextOf(item);
+			if (t != null) {
 				if (filterCaseInsensitive) {
-					filter = filterText.toLowerCase();
+					t = t.toLowerCase();
 				}
+				return t.indexOf(filter) >= 0;
+			}
+			return true;
+		}
 
-				for(int i = 0; i < count; i++) {
-					boolean keep = true;
+		private void insertIndex(int at, int position)
+		{
+			if (indexCount == index.length) {
+				int[] grown = new int[Math.max(16, index.length * 2)];
+				System.arraycopy(index, 0, grown, 0, indexCount);
+				index = grown;
+			}
+			System.arraycopy(index, at, index, at + 1, indexCount - at);
+			index[at] = position;
+			indexCount++;
+		}
 
-					Item item = items.get(i);
-					if (!rowTypes.containsKey(item.className)) {
-						if (DBG) {
-							Log.i(LCAT, "Adding className " + item.className);
-						}
-						rowTypes.put(item.className, rowTypeCounter.incrementAndGet());
-						classChange = true;
-					}
-					if (item.proxy.hasDynamicValue(filterAttribute)) {
-						String t = TiConvert.toString(item.proxy.getDynamicValue(filterAttribute));
-						if (filterCaseInsensitive) {
-							t = t.toLowerCase();
-						}
-						if(t.indexOf(filter) < 0) {
-							keep = false;
-						}
-					}
+		private void removeIndex(int at)
+		{
+			System.arraycopy(index, at + 1, index, at, indexCount - at - 1);
+			indexCount--;
+		}
 
-					if (keep) {
-						index.add(i);
-					}
+		// First filtered entry at or after the view model position.
+		private int lowerBound(int position)
+		{
+			int low = 0;
+			int high = indexCount;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (index[mid] < position) {
+					low = mid + 1;
+				} else {
+					high = mid;
 				}
-			} else {
-				for(int i = 0; i < count; i++) {
-
-					Item item = items.get(i);
-					if (!rowTypes.containsKey(item.className)) {
-						if (DBG) {
-							Log.i(LCAT, "Adding className " + item.className);
-						}
-						rowTypes.put(item.className, rowTypeCounter.incrementAndGet());
-						classChange = true;
+			}
+			return low;
+		}
+
+		/**
+		 * Patches the filtered index for count items inserted at position instead of
+		 * filtering the whole model again.
+		 */
+		void itemsInserted(int position, int count)
+		{
+			boolean classChange = false;
+			ArrayList<Item> items = viewModel.getViewModel();
+			for (int i = position; i < position + count; i++) {
+				classChange |= registerLayout(items.get(i));
+			}
+
+			if (filtered) {
+				int at = lowerBound(position);
+				for (int i = at; i < indexCount; i++) {
+					index[i] += count;
+				}
+				for (int i = position; i < position + count; i++) {
+					if (matchesFilter(items.get(i))) {
+						insertIndex(at++, i);
 					}
+				}
+			}
+			changed(classChange);
+		}
+
+		void itemRemoved(int position)
+		{
+			if (filtered) {
+				int at = lowerBound(position);
+				if (at < indexCount && index[at] == position) {
+					removeIndex(at);
+				}
+				for (int i = at; i < indexCount; i++) {
+					index[i]--;
+				}
+			}
+			changed(false);
+		}
 
-					index.add(i);
+		void itemChanged(int position)
+		{
+			Item item = viewModel.getViewModel().get(position);
+			boolean classChange = registerLayout(item);
+
+			if (filtered) {
+				int at = lowerBound(position);
+				boolean present = at < indexCount && index[at] == position;
+				boolean keep = matchesFilter(item);
+				if (present && !keep) {
+					removeIndex(at);
+				} else if (keep && !present) {
+					insertIndex(at, position);
 				}
 			}
+			changed(classChange);
+		}
 
+		private void changed(boolean classChange)
+		{
 			if (classChange) {
 				listView.setAdapter(this);
 			}
+			super.notifyDataSetChanged();
 		}
 
 		public int getCount() {
-			//return viewModel.getViewModel().length();
-			return index.size();
+			if (filtered) {
+				return indexCount;
+			}
+			return viewModel.getViewModel().size();
 		}
 
 		public Object getItem(int position) {
-			if (position >= index.size()) {
+			if (position >= getCount()) {
 				return null;
 			}
 
-			return viewModel.getViewModel().get(index.get(position));
+			if (filtered) {
+				position = index[position];
+			}
+			return viewModel.getViewModel().get(position);
 		}
 
 		public long getItemId(int position) {
@@ -175,13 +328,8 @@ public class TiTableView extends FrameLayout
 		}
 
 		private int typeForItem(Item item) {
-			if(!rowTypes.containsKey(item.className)) {
-				rowTypes.put(item.className, rowTypeCounter.incrementAndGet());
-				if (DBG) {
-					Log.i(LCAT, "Adding row class type: " + item.className);
-				}
-			}
-			return rowTypes.get(item.className);
+			registerLayout(item);
+			return rowTypes.get(item.getLayoutSignature());
 		}
 
 		public View getView(int position, View convertView, ViewGroup parent)
@@ -198,12 +346,16 @@ public class TiTableView extends FrameLayout
 						v = null;
 					}
 				} else {
-					// otherwise compare class names
-					if (!v.getClassName().equals(item.className)) {
-						Log.w(LCAT, "Handed a view to convert with className " + v.getClassName() + " expected " + item.className);
+					// otherwise compare layouts
+					if (!v.getLayoutSignature().equals(item.getLayoutSignature())) {
+						Log.w(LCAT, "Handed a view to convert with layout " + v.getLayoutSignature() + " expected " + item.getLayoutSignature());
+						stats.viewRejected();
 						v = null;
 					}
 				}
+				if (v != null) {
+					stats.viewRecycled();
+				}
 			}
 
 			if (v == null) {
@@ -220,6 +372,11 @@ public class TiTableView extends FrameLayout
 					v = new TiTableViewRowProxyItem(tiContext);
 					v.setClassName(item.className);
 				}
+				v.setLayoutSignature(item.getLayoutSignature());
+				if (v instanceof TiTableViewRowProxyItem) {
+					((TiTableViewRowProxyItem) v).setRecycleStats(stats);
+				}
+				stats.viewCreated();
 
 				v.setLayoutParams(new AbsListView.LayoutParams(
 					AbsListView.LayoutParams.FILL_PARENT, AbsListView.LayoutParams.FILL_PARENT));
@@ -363,12 +520,17 @@ public class TiTableView extends FrameLayout
 					}
 					TiBaseTableViewItem v = (TiBaseTableViewItem) view;
 					String viewClicked = v.getLastClickedViewName();
-					Item item = viewModel.getViewModel().get(adapter.index.get(position));
+					Item item = (Item) adapter.getItem(position);
 					TiDict event = new TiDict();
 
 					event.put("rowData", item.rowData);
 					event.put("section", viewModel.getSection(item.sectionIndex));
-					event.put("row", item.proxy);
+					if (item.isDataRow()) {
+						// The row is handed to script, so it needs its proxy from now on.
+						event.put("row", viewModel.materialize(item));
+					} else {
+						event.put("row", item.proxy);
+					}
 					event.put("index", item.index);
 					event.put("detail", false);
 
@@ -397,9 +559,9 @@ public class TiTableView extends FrameLayout
 				}
 				TiBaseTableViewItem v = (TiBaseTableViewItem) view;
 				TiDict viewProperties = null;
-				Item item = viewModel.getViewModel().get(adapter.index.get(position));
-				if (item.proxy != null) {
-					viewProperties = item.proxy.getDynamicProperties();
+				Item item = (Item) adapter.getItem(position);
+				if (item != null) {
+					viewProperties = item.getProperties();
 					if (viewProperties.containsKey("selectedBackgroundImage")) {
 						v.setBackgroundImageProperty(viewProperties, "selectedBackgroundImage");
 					} else if (viewProperties.containsKey("selectedBackgroundColor")) {
@@ -457,6 +619,100 @@ public class TiTableView extends FrameLayout
 		}
 	}
 
+	/**
+	 * Shows rows inserted into an existing section, patching the view model and adapter in
+	 * place when the model is current.
+	 */
+	public void insertRows(int sectionIndex, int indexInSection, List<Object> rows)
+	{
+		int generation = viewModel.getGeneration();
+		int position = viewModel.insertRows(sectionIndex, indexInSection, rows);
+		if (position < 0 || adapter == null) {
+			viewModel.setDirty();
+			dataSetChanged();
+		} else {
+			if (searchIndexAt(generation)) {
+				ArrayList<Item> items = viewModel.getViewModel();
+				String[] added = new String[rows.size()];
+				for (int i = 0; i < added.length; i++) {
+					added[i] = filterTextOf(items.get(position + i));
+				}
+				searchIndex = searchIndex.inserted(viewModel.getGeneration(), position, added);
+			}
+			adapter.itemsInserted(position, rows.size());
+		}
+	}
+
+	public void removeRow(int sectionIndex, int indexInSection)
+	{
+		int generation = viewModel.getGeneration();
+		int position = viewModel.removeRow(sectionIndex, indexInSection);
+		if (position < 0 || adapter == null) {
+			viewModel.setDirty();
+			dataSetChanged();
+		} else {
+			if (searchIndexAt(generation)) {
+				searchIndex = searchIndex.removed(viewModel.getGeneration(), position);
+			}
+			adapter.itemRemoved(position);
+		}
+	}
+
+	public void updateRow(int sectionIndex, int indexInSection, Object row)
+	{
+		int generation = viewModel.getGeneration();
+		int position = viewModel.updateRow(sectionIndex, indexInSection, row);
+		if (position < 0 || adapter == null) {
+			viewModel.setDirty();
+			dataSetChanged();
+		} else {
+			if (searchIndexAt(generation)) {
+				Item item = viewModel.getViewModel().get(position);
+				searchIndex = searchIndex.updated(viewModel.getGeneration(), position, filterTextOf(item));
+			}
+			adapter.itemChanged(position);
+		}
+	}
+
+	/**
+	 * Rebinds a data row's view to the proxy just created for it, so script changes to the
+	 * proxy show on screen.
+	 */
+	public void rowMaterialized(int sectionIndex, int indexInSection, TableViewRowProxy rowProxy)
+	{
+		int position = viewModel.rowMaterialized(sectionIndex, indexInSection, rowProxy);
+		if (position < 0 || adapter == null) {
+			viewModel.setDirty();
+			dataSetChanged();
+		} else {
+			adapter.itemChanged(position);
+		}
+	}
+
+	/**
+	 * Follows a script change to a row proxy's property, refiltering the table when it was
+	 * the filter attribute.
+	 */
+	public void rowChanged(int sectionIndex, int indexInSection, String key)
+	{
+		if (filterAttribute == null || !filterAttribute.equals(key)) {
+			return;
+		}
+
+		if (searchIndexAt(viewModel.getGeneration())) {
+			int position = viewModel.getPosition(sectionIndex, indexInSection);
+			if (position < 0) {
+				searchIndex = null;
+			} else {
+				Item item = viewModel.getViewModel().get(position);
+				searchIndex = searchIndex.updated(viewModel.getGeneration(), position, filterTextOf(item));
+			}
+		}
+		if (adapter != null && isFiltering()) {
+			startFilter();
+		}
+	}
+
 	public void setOnItemClickListener(OnItemClickedListener listener) {
 		this.itemClickListener = listener;
 	}
@@ -468,6 +724,10 @@ public class TiTableView extends FrameLayout
 		listView.setDividerHeight(dividerHeight);
 	}
 
+	public TiDict getRecycleStats() {
+		return stats.toDict(rowTypes.size());
+	}
+
 	public TableViewModel getTableViewModel() {
 		return this.viewModel;
 	}
@@ -482,12 +742,61 @@ public class TiTableView extends FrameLayout
 		if (adapter != null) {
 			tiContext.getActivity().runOnUiThread(new Runnable() {
 				public void run() {
-					dataSetChanged();
+					startFilter();
 				}
 			});
 		}
 	}
 
+	private boolean isFiltering() {
+		return filterAttribute != null && filterText != null && filterAttribute.length() > 0 && filterText.length() > 0;
+	}
+
+	private void startFilter()
+	{
+		if (filterTask != null) {
+			filterTask.cancel(false);
+			filterTask = null;
+		}
+
+		if (isFiltering()) {
+			filterTask = new FilterTask(getSearchIndex(), filterText);
+			filterTask.execute();
+		} else {
+			dataSetChanged();
+		}
+	}
+
+	private String filterTextOf(Item item)
+	{
+		if (item.hasValue(filterAttribute)) {
+			String t = TiConvert.toString(item.getValue(filterAttribute));
+			return t == null ? "" : t;
+		}
+		return null;
+	}
+
+	// Snapshot of the current view model's filter texts, reused until the model changes.
+	private TableViewSearchIndex getSearchIndex()
+	{
+		ArrayList<Item> items = viewModel.getViewModel();
+		if (searchIndex == null || searchIndex.getGeneration() != viewModel.getGeneration()
+			|| !searchIndex.isFor(filterAttribute, filterCaseInsensitive))
+		{
+			String[] texts = new String[items.size()];
+			for (int i = 0; i < texts.length; i++) {
+				texts[i] = filterTextOf(items.get(i));
+			}
+			searchIndex = new TableViewSearchIndex(viewModel.getGeneration(), filterAttribute, filterCaseInsensitive, texts);
+		}
+		return searchIndex;
+	}
+
+	// Whether the search index was current before an edit and can follow it.
+	private boolean searchIndexAt(int generation) {
+		return searchIndex != null && searchIndex.getGeneration() == generation
+			&& searchIndex.isFor(filterAttribute, filterCaseInsensitive);
+	}
 
 	public void setFilterAttribute(String filterAttribute) {
 		this.filterAttribute = filterAttribute;
@@ -43,6 +43,13 @@ public class TiTableViewRowProxyItem extends TiBaseTableViewItem
 	private boolean hasControls;
 	private int height = -1;
 	private Item item;
+	// Stands in for data rows of templated tables, its properties are replaced on each bind.
+	private TableViewRowProxy dataProxy;
+	private TableViewRecycleStats stats;
+	// Set by bind, a layout request from the content after that means a control changed size.
+	private boolean bound;
+	// Hash of the properties last bound, a cached height is only reused for the same ones.
+	private int boundKey;
 
 	public TiTableViewRowProxyItem(TiContext tiContext)
 	{
@@ -64,19 +71,58 @@ public class TiTableViewRowProxyItem extends TiBaseTableViewItem
 
 	public void setRowData(Item item)
 	{
+		if (this.item != null && this.item.proxy instanceof TableViewRowProxy) {
+			((TableViewRowProxy) this.item.proxy).releaseTableViewItem(this);
+		}
 		this.item = item;
-		TableViewRowProxy rp = (TableViewRowProxy) item.proxy;
-		rp.setTableViewItem(this);
-		setRowData(rp);
+
+		if (item.isDataRow()) {
+			if (dataProxy == null) {
+				dataProxy = new TableViewRowProxy(tiContext, new Object[0]);
+				dataProxy.setParent(item.getTable());
+				// So clicks on its labels carry the row they were made for
+				dataProxy.setTableViewItem(this);
+			}
+			TiDict props = dataProxy.getDynamicProperties();
+			props.clear();
+			if (item.template != null) {
+				props.putAll(item.template);
+			}
+			props.putAll((TiDict) item.rowData);
+			bind(dataProxy);
+		} else {
+			TableViewRowProxy rp = (TableViewRowProxy) item.proxy;
+			rp.setTableViewItem(this);
+			bind(rp);
+		}
 	}
 
 	public Item getRowData() {
 		return this.item;
 	}
 
+	public void setRecycleStats(TableViewRecycleStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Rebinds after the row's properties changed.
+	 */
 	public void setRowData(TableViewRowProxy rp)
+	{
+		if (item != null && (item.proxy == rp || rp == dataProxy)) {
+			item.invalidateHeight();
+		}
+		bind(rp);
+		requestLayout();
+	}
+
+	private void bind(TableViewRowProxy rp)
 	{
 		TiDict props = rp.getDynamicProperties();
+		height = -1;
+		bound = true;
+		boundKey = keyOf(rp);
 		hasControls = rp.hasControls();
 
 		setBackgroundFromProperties(props);
@@ -199,6 +245,20 @@ public class TiTableViewRowProxyItem extends TiBaseTableViewItem
 	}
 
 
+	// Controls may have changed while the row was off screen, so their properties are part
+	// of the key.
+	private static int keyOf(TableViewRowProxy rp)
+	{
+		int key = rp.getDynamicProperties().hashCode();
+		if (rp.hasControls()) {
+			ArrayList<TiViewProxy> controls = rp.getControls();
+			for (int i = 0; i < controls.size(); i++) {
+				key = 31 * key + controls.get(i).getDynamicProperties().hashCode();
+			}
+		}
+		return key;
+	}
+
 	@Override
 	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec)
 	{
@@ -231,16 +291,38 @@ public class TiTableViewRowProxyItem extends TiBaseTableViewItem
 
 		int adjustedWidth = w - leftImageWidth - rightImageWidth - imageHMargin;
 		//int adjustedWidth = w;
-
-		measureChild(content, MeasureSpec.makeMeasureSpec(adjustedWidth, wMode), heightMeasureSpec);
+		int contentWidthSpec = MeasureSpec.makeMeasureSpec(adjustedWidth, wMode);
 
 		if(hMode == MeasureSpec.UNSPECIFIED) {
-			if (height == -1) {
-				h = Math.max(h, Math.max(content.getMeasuredHeight(), Math.max(leftImageHeight, rightImageHeight)));
-			} else {
+			// Lists measure rows with an open height. Once a row's height is known for its
+			// data and width the content only needs measuring at that height.
+			if (item != null && !bound && content.isLayoutRequested()) {
+				item.measuredHeight = -1;
+			}
+			bound = false;
+			if (height != -1) {
 				h = height;
+			} else if (item != null && item.measuredHeight >= 0 && item.measuredWidth == w
+				&& item.measuredKey == boundKey) {
+				h = item.measuredHeight;
+				if (stats != null) {
+					stats.heightMeasured(true);
+				}
+			} else {
+				measureChild(content, contentWidthSpec, heightMeasureSpec);
+				h = Math.max(h, Math.max(content.getMeasuredHeight(), Math.max(leftImageHeight, rightImageHeight)));
+				if (item != null) {
+					item.measuredWidth = w;
+					item.measuredHeight = h;
+					item.measuredKey = boundKey;
+				}
+				if (stats != null) {
+					stats.heightMeasured(false);
+				}
 			}
-			measureChild(content, MeasureSpec.makeMeasureSpec(adjustedWidth, wMode), MeasureSpec.makeMeasureSpec(h, MeasureSpec.EXACTLY));
+			measureChild(content, contentWidthSpec, MeasureSpec.makeMeasureSpec(h, MeasureSpec.EXACTLY));
+		} else {
+			measureChild(content, contentWidthSpec, heightMeasureSpec);
 		}
 		
 		setMeasuredDimension(w, Math.max(h, Math.max(leftImageHeight, rightImageHeight)));
@@ -6,9 +6,11 @@
  */
 package org.appcelerator.titanium;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.Method;
@@ -19,19 +21,26 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.appcelerator.titanium.analytics.TiAnalyticsEvent;
 import org.appcelerator.titanium.analytics.TiAnalyticsEventFactory;
 import org.appcelerator.titanium.analytics.TiAnalyticsModel;
 import org.appcelerator.titanium.analytics.TiAnalyticsService;
+import org.appcelerator.titanium.kroll.KrollBinding;
+import org.appcelerator.titanium.kroll.KrollScriptCache;
+import org.appcelerator.titanium.kroll.KrollStats;
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
+import org.appcelerator.titanium.util.TiImageCache;
 import org.appcelerator.titanium.util.TiPlatformHelper;
 import org.appcelerator.titanium.view.ITiWindowHandler;
 
 import android.app.Activity;
 import android.app.Application;
 import android.content.Intent;
+import android.os.Process;
 
 // Naming TiHost to more closely match other implementations
 public class TiApplication extends Application
@@ -41,13 +50,20 @@ public class TiApplication extends Application
 	public static final String DEPLOY_TYPE_PRODUCTION = "production";
 
 	private static final String PROPERTY_DEPLOY_TYPE = "ti.deploytype";
+	private static final String PROPERTY_BRIDGE_STATS = "ti.android.bridgeStats";
 	private static final String LCAT = "TiApplication";
 	private static final boolean DBG = TiConfig.LOGD;
 	private static final long STATS_WAIT = 300000;
 
+	// Generated by the builder, lists the module and proxy classes the app references
+	private static final String WARMUP_ASSET = "ti.warmup";
+
 	private String baseUrl;
 	private String startUrl;
-	private HashMap<Class<?>, HashMap<String, Method>> methodMap;
+	private ConcurrentHashMap<Class<?>, HashMap<String, Method>> methodMap;
+	private AtomicLong methodCacheHits = new AtomicLong();
+	private AtomicLong methodCacheMisses = new AtomicLong();
+	private volatile long methodWarmupTime = -1;
 	private HashMap<String, SoftReference<TiProxy>> proxyMap;
 	private TiRootActivity rootActivity;
 	private TiProperties appProperties;
@@ -112,14 +128,16 @@ public class TiApplication extends Application
 		File fullPath = new File(baseUrl, getStartFilename("app.js"));
 		baseUrl = fullPath.getParent();
 
-		methodMap = new HashMap<Class<?>, HashMap<String,Method>>(25);
+		methodMap = new ConcurrentHashMap<Class<?>, HashMap<String,Method>>(25);
 		proxyMap = new HashMap<String, SoftReference<TiProxy>>(5);
+		startMethodWarmup();
 
 		TiPlatformHelper.initialize(this);
 
 		appProperties = new TiProperties(getApplicationContext(), "titanium", false);
 		systemProperties = new TiProperties(getApplicationContext(), "system", true);
 		systemProperties.setString("ti.version", buildVersion);
+		KrollStats.setEnabled(systemProperties.getBool(PROPERTY_BRIDGE_STATS, false));
 	}
 
 	public void setRootActivity(TiRootActivity rootActivity)
@@ -197,46 +215,126 @@ public class TiApplication extends Application
 		return defaultStartFile;
 	}
 
-	public synchronized Method methodFor(Class<?> source, String name)
+	public Method methodFor(Class<?> source, String name)
 	{
+		// Entries are never modified once published, so lookups don't need a lock
 		HashMap<String, Method> classMethods = methodMap.get(source);
 		if (classMethods == null) {
-			Method[] methods = source.getMethods();
-			classMethods = new HashMap<String, Method>(methods.length);
-			methodMap.put(source, classMethods);
-
-			// we need to sort methods by their implementation order
-			// i.e. subClass > superClass precedence
-			final HashMap<Class<?>, Integer> hierarchy = new HashMap<Class<?>, Integer>();
-			int i = 0;
-			hierarchy.put(source, 0);
-			for (Class<?> superClass = source.getSuperclass(); superClass != null;
-				superClass = superClass.getSuperclass())
-			{
-				hierarchy.put(superClass, ++i);
+			methodCacheMisses.incrementAndGet();
+			classMethods = cacheMethods(source);
+		} else {
+			methodCacheHits.incrementAndGet();
+		}
+
+		return classMethods.get(name);
+	}
+
+	private HashMap<String, Method> cacheMethods(Class<?> source)
+	{
+		Method[] methods = source.getMethods();
+		HashMap<String, Method> classMethods = new HashMap<String, Method>(methods.length);
+
+		// we need to sort methods by their implementation order
+		// i.e. subClass > superClass precedence
+		final HashMap<Class<?>, Integer> hierarchy = new HashMap<Class<?>, Integer>();
+		int i = 0;
+		hierarchy.put(source, 0);
+		for (Class<?> superClass = source.getSuperclass(); superClass != null;
+			superClass = superClass.getSuperclass())
+		{
+			hierarchy.put(superClass, ++i);
+		}
+
+		Comparator<Method> comparator = new Comparator<Method>()
+		{
+			public int compare(Method o1, Method o2) {
+				int h1 = hierarchy.get(o1.getDeclaringClass());
+				int h2 = hierarchy.get(o2.getDeclaringClass());
+				return h1-h2;
 			}
+		};
+
+		List<Method> methodList = Arrays.asList(methods);
+		Collections.sort(methodList, comparator);
+		Collections.reverse(methodList);
 
-			Comparator<Method> comparator = new Comparator<Method>()
+		for(Method method : methodList) {
+			// TODO filter?
+			//Log.e(LCAT, "Obj: " + source.getSimpleName() + " Method: " + method.getName());
+			classMethods.put(method.getName(), method);
+		}
+
+		HashMap<String, Method> existing = methodMap.putIfAbsent(source, classMethods);
+		return existing != null ? existing : classMethods;
+	}
+
+	private void startMethodWarmup()
+	{
+		Thread warmup = new Thread(new Runnable()
+		{
+			public void run()
 			{
-				public int compare(Method o1, Method o2) {
-					int h1 = hierarchy.get(o1.getDeclaringClass());
-					int h2 = hierarchy.get(o2.getDeclaringClass());
-					return h1-h2;
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				long start = System.currentTimeMillis();
+				int count = 0;
+				BufferedReader reader = null;
+				try {
+					reader = new BufferedReader(new InputStreamReader(getAssets().open(WARMUP_ASSET)), 1024);
+					String className = null;
+					while ((className = reader.readLine()) != null) {
+						className = className.trim();
+						if (className.length() == 0) {
+							continue;
+						}
+						try {
+							// Don't initialize, we only want the method tables
+							Class<?> c = Class.forName(className, false, getClassLoader());
+							if (!methodMap.containsKey(c)) {
+								cacheMethods(c);
+							}
+							KrollBinding.forClass(c);
+							count++;
+						} catch (ClassNotFoundException e) {
+							if (DBG) {
+								Log.d(LCAT, "Skipping warmup of unknown class " + className);
+							}
+						}
+					}
+				} catch (IOException e) {
+					if (DBG) {
+						Log.d(LCAT, "No " + WARMUP_ASSET + " found, skipping method warmup");
+					}
+				} finally {
+					if (reader != null) {
+						try {
+							reader.close();
+						} catch (IOException e) {
+							// Ignore
+						}
+					}
+				}
+				methodWarmupTime = System.currentTimeMillis() - start;
+				if (DBG) {
+					Log.d(LCAT, "Warmed method cache for " + count + " classes in " + methodWarmupTime + "ms");
 				}
-			};
+			}
+		}, "ti$warmup");
+		warmup.start();
+	}
 
-			List<Method> methodList = Arrays.asList(methods);
-			Collections.sort(methodList, comparator);
-			Collections.reverse(methodList);
+	public long getMethodCacheHits() {
+		return methodCacheHits.get();
+	}
 
-			for(Method method : methodList) {
-				// TODO filter?
-				//Log.e(LCAT, "Obj: " + source.getSimpleName() + " Method: " + method.getName());
-				classMethods.put(method.getName(), method);
-			}
-		}
+	public long getMethodCacheMisses() {
+		return methodCacheMisses.get();
+	}
 
-		return classMethods.get(name);
+	/**
+	 * @return time spent pre-populating the method cache in ms, or -1 if the warmup hasn't finished.
+	 */
+	public long getMethodWarmupTime() {
+		return methodWarmupTime;
 	}
 
 	private ArrayList<TiProxy> appEventProxies = new ArrayList<TiProxy>();
@@ -299,6 +397,9 @@ public class TiApplication extends Application
 	@Override
 	public void onLowMemory()
 	{
+		KrollScriptCache.clear();
+		TiEvent.clearPools();
+		TiImageCache.clear();
 		super.onLowMemory();
 	}
 
@@ -15,9 +15,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -25,6 +23,7 @@ import org.appcelerator.titanium.bridge.OnEventListenerChange;
 import org.appcelerator.titanium.io.TiBaseFile;
 import org.appcelerator.titanium.io.TiFileFactory;
 import org.appcelerator.titanium.kroll.KrollBridge;
+import org.appcelerator.titanium.kroll.KrollCallback;
 import org.appcelerator.titanium.kroll.KrollContext;
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiActivitySupport;
@@ -41,6 +40,7 @@ import android.content.DialogInterface.OnClickListener;
 import android.content.res.Configuration;
 import android.graphics.Color;
 import android.net.Uri;
+import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.os.Messenger;
@@ -59,13 +59,16 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 	private static final boolean TRACE = TiConfig.LOGV;
 
 	private long mainThreadId;
+	// Delivers events held back by a listener's minInterval
+	private Handler trailingHandler = new Handler(Looper.getMainLooper());
 
 	private String baseUrl;
 
 	private WeakReference<Activity> weakActivity;
 	private TiEvaluator	tiEvaluator;
 	private TiApplication tiApp;
-	private HashMap<String, HashMap<Integer, TiListener>> eventListeners;
+	private TiUIDispatcher uiDispatcher;
+	private ConcurrentHashMap<String, EventListeners> eventListeners;
 	private AtomicInteger listenerIdGenerator;
 
 	private ArrayList<WeakReference<OnEventListenerChange>> eventChangeListeners;
@@ -97,19 +100,33 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 
 	public static class TiListener
 	{
+		protected int id;
+		protected String proxyId;
 		protected SoftReference<TiProxy> weakTiProxy;
 		protected Object listener;
+		protected TiEventPolicy policy;
 
 		public TiListener(TiProxy tiProxy, Object listener) {
+			this(-1, tiProxy, listener, null);
+		}
+
+		public TiListener(int id, TiProxy tiProxy, Object listener, TiEventPolicy policy) {
+			this.id = id;
+			this.proxyId = tiProxy.getProxyId();
 			this.weakTiProxy = new SoftReference<TiProxy>(tiProxy);
 			this.listener = listener;
+			this.policy = policy;
 		}
 
 		public boolean invoke(String eventName, TiDict data) {
 			boolean invoked = false;
 			TiProxy p = weakTiProxy.get();
 			if (p != null && listener != null) {
-				p.fireSingleEvent(eventName, listener, data);
+				if (policy != null && policy.getMode() != TiEventPolicy.MODE_ALL && listener instanceof KrollCallback) {
+					((KrollCallback) listener).callWithPolicy(data, policy);
+				} else {
+					p.fireSingleEvent(eventName, listener, data);
+				}
 				invoked = true;
 			} else {
 				if (DBG) {
@@ -126,14 +143,97 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 		}
 	}
 
+	/**
+	 * The listeners for one event name, in registration order and indexed by proxy id.
+	 * The arrays are replaced, never modified, so dispatch reads them without locking.
+	 */
+	private static class EventListeners
+	{
+		private static final TiListener[] EMPTY = new TiListener[0];
+
+		private volatile TiListener[] all = EMPTY;
+		private final ConcurrentHashMap<String, TiListener[]> byProxy = new ConcurrentHashMap<String, TiListener[]>();
+
+		public TiListener[] all() {
+			return all;
+		}
+
+		public TiListener[] forProxy(TiProxy proxy) {
+			TiListener[] listeners = byProxy.get(proxy.getProxyId());
+			return listeners == null ? EMPTY : listeners;
+		}
+
+		public int size() {
+			return all.length;
+		}
+
+		public synchronized int add(TiListener listener)
+		{
+			all = append(all, listener);
+			TiListener[] current = byProxy.get(listener.proxyId);
+			byProxy.put(listener.proxyId, append(current == null ? EMPTY : current, listener));
+			return all.length;
+		}
+
+		// Removes by id, or by callback when id is -1
+		public synchronized TiListener remove(int id, Object callback)
+		{
+			int index = -1;
+			for (int i = 0; i < all.length; i++) {
+				TiListener l = all[i];
+				if (id == -1 ? l.listener.equals(callback) : l.id == id) {
+					index = i;
+					break;
+				}
+			}
+			if (index == -1) {
+				return null;
+			}
+
+			TiListener removed = all[index];
+			all = without(all, removed);
+			TiListener[] current = byProxy.get(removed.proxyId);
+			if (current != null) {
+				current = without(current, removed);
+				if (current.length == 0) {
+					byProxy.remove(removed.proxyId);
+				} else {
+					byProxy.put(removed.proxyId, current);
+				}
+			}
+			return removed;
+		}
+
+		private static TiListener[] append(TiListener[] listeners, TiListener listener)
+		{
+			TiListener[] result = new TiListener[listeners.length + 1];
+			System.arraycopy(listeners, 0, result, 0, listeners.length);
+			result[listeners.length] = listener;
+			return result;
+		}
+
+		private static TiListener[] without(TiListener[] listeners, TiListener listener)
+		{
+			TiListener[] result = new TiListener[listeners.length - 1];
+			int j = 0;
+			for (int i = 0; i < listeners.length; i++) {
+				if (listeners[i] != listener && j < result.length) {
+					result[j++] = listeners[i];
+				}
+			}
+			return result;
+		}
+	}
+
 	public TiContext(Activity activity, String baseUrl)
 	{
 		this.mainThreadId = Looper.getMainLooper().getThread().getId();
 
 		this.tiApp = (TiApplication) activity.getApplication();
 		this.weakActivity = new WeakReference<Activity>(activity);
+		this.uiDispatcher = new TiUIDispatcher();
 		this.listenerIdGenerator = new AtomicInteger(0);
-		this.eventListeners = new HashMap<String, HashMap<Integer,TiListener>>();
+		this.eventListeners = new ConcurrentHashMap<String, EventListeners>();
 		eventChangeListeners = new ArrayList<WeakReference<OnEventListenerChange>>();
 		//lifecycleListeners = new ArrayList<WeakReference<OnLifecycleEvent>>();
 		lifecycleListeners = Collections.synchronizedList(new ArrayList<WeakReference<OnLifecycleEvent>>());
@@ -175,6 +275,10 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 		return activity;
 	}
 
+	public TiUIDispatcher getUIDispatcher() {
+		return uiDispatcher;
+	}
+
 	public TiApplication getTiApp() {
 		return tiApp;
 	}
@@ -373,26 +477,36 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 	}
 
 	public int addEventListener(String eventName, TiProxy tiProxy, Object listener)
+	{
+		return addEventListener(eventName, tiProxy, listener, null);
+	}
+
+	/**
+	 * @param policy how events are delivered to this listener, null to deliver every event
+	 * as it is fired
+	 */
+	public int addEventListener(String eventName, TiProxy tiProxy, Object listener, TiEventPolicy policy)
 	{
 		int listenerId = -1;
 
 		if (eventName != null) {
 			if (tiProxy != null) {
 				if (listener != null) {
-					synchronized (eventListeners) {
-						HashMap<Integer, TiListener> listeners = eventListeners.get(eventName);
-						if (listeners == null) {
-							listeners = new HashMap<Integer, TiListener>();
-							eventListeners.put(eventName, listeners);
+					EventListeners listeners = eventListeners.get(eventName);
+					if (listeners == null) {
+						listeners = new EventListeners();
+						EventListeners existing = eventListeners.putIfAbsent(eventName, listeners);
+						if (existing != null) {
+							listeners = existing;
 						}
+					}
 
-						listenerId = listenerIdGenerator.incrementAndGet();
-						listeners.put(listenerId, new TiListener(tiProxy, listener));
-						if (DBG) {
-							Log.d(LCAT, "Added for eventName '" + eventName + "' with id " + listenerId);
-						}
-						dispatchOnEventChange(true, eventName, listeners.size(), tiProxy);
+					listenerId = listenerIdGenerator.incrementAndGet();
+					int count = listeners.add(new TiListener(listenerId, tiProxy, listener, policy));
+					if (DBG) {
+						Log.d(LCAT, "Added for eventName '" + eventName + "' with id " + listenerId);
 					}
+					dispatchOnEventChange(true, eventName, count, tiProxy);
 				} else {
 					throw new IllegalStateException("addEventListener expects a non-null listener");
 				}
@@ -409,14 +523,17 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 	public void removeEventListener(String eventName, int listenerId)
 	{
 		if (eventName != null) {
-			HashMap<Integer, TiListener> listeners = eventListeners.get(eventName);
+			EventListeners listeners = eventListeners.get(eventName);
 			if (listeners != null) {
-				TiListener listener = listeners.get(listenerId);
-				if (listeners.remove(listenerId) == null) {
+				TiListener listener = listeners.remove(listenerId, null);
+				if (listener == null) {
 					if (DBG) {
 						Log.w(LCAT, "listenerId " + listenerId + " not for eventName '" + eventName + "'");
 					}
 				} else {
+					if (listener.policy != null) {
+						listener.policy.cancel();
+					}
 					dispatchOnEventChange(false, eventName, listeners.size(), listener.weakTiProxy.get());
 					if (DBG) {
 						Log.i(LCAT, "listener with id " + listenerId + " with eventName '" + eventName + "' was removed.");
@@ -436,21 +553,15 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 		}
 
 		if (eventName != null) {
-			HashMap<Integer, TiListener> listeners = eventListeners.get(eventName);
+			EventListeners listeners = eventListeners.get(eventName);
 			if (listeners != null) {
-				boolean removed = false;
-				for (Entry<Integer, TiListener> entry : listeners.entrySet())
-				{
-					Object l = entry.getValue().listener;
-					if (l.equals(listener))
-					{
-						listeners.remove(entry.getKey());
-						dispatchOnEventChange(false, eventName, listeners.size(), entry.getValue().weakTiProxy.get());
-						removed = true;
-						break;
+				TiListener removed = listeners.remove(-1, listener);
+				if (removed != null) {
+					if (removed.policy != null) {
+						removed.policy.cancel();
 					}
-				}
-				if (!removed) {
+					dispatchOnEventChange(false, eventName, listeners.size(), removed.weakTiProxy.get());
+				} else {
 					Log.w(LCAT, "listener not found for eventName '" + eventName + "'");
 				}
 			}
@@ -464,9 +575,9 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 		boolean result = false;
 
 		if (eventName != null) {
-			HashMap<Integer, TiListener> listeners = eventListeners.get(eventName);
+			EventListeners listeners = eventListeners.get(eventName);
 			if (listeners != null) {
-				result = !listeners.isEmpty();
+				result = listeners.size() > 0;
 			}
 		} else {
 			throw new IllegalStateException("removeEventListener expects a non-null eventName");
@@ -481,14 +592,9 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 
 		if (eventName != null) {
 			if (tiProxy != null) {
-				HashMap<Integer, TiListener> listeners = eventListeners.get(eventName);
-				if (listeners != null && !listeners.isEmpty()) {
-					for (TiListener listener : listeners.values()) {
-						if (listener.isSameProxy(tiProxy)) {
-							result = true;
-							break;
-						}
-					}
+				EventListeners listeners = eventListeners.get(eventName);
+				if (listeners != null) {
+					result = listeners.forProxy(tiProxy).length > 0;
 				}
 			} else {
 				throw new IllegalStateException("addEventListener expects a non-null tiProxy");
@@ -509,32 +615,48 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 	{
 		boolean dispatched = false;
 		if (eventName != null) {
-			Map<Integer, TiListener> listeners = eventListeners.get(eventName);
+			EventListeners listeners = eventListeners.get(eventName);
 			if (listeners != null) {
-				if (data == null) {
-					data = new TiDict();
+				// Snapshot, listeners added or removed while dispatching don't affect this event
+				TiListener[] snapshot = tiProxy == null ? listeners.all() : listeners.forProxy(tiProxy);
+				if (snapshot.length > 0) {
+					if (data == null) {
+						data = new TiDict();
+					}
+					data.put("type", eventName);
 				}
-				data.put("type", eventName);
-
-				Set<Entry<Integer, TiListener>> listenerSet = listeners.entrySet();
-				synchronized(eventListeners) {
-					for(Entry<Integer, TiListener> entry : listenerSet) {
-						TiListener listener = entry.getValue();
-						if (tiProxy == null || (tiProxy != null && listener.isSameProxy(tiProxy))) {
-							boolean invoked = false;
-							try {
-								if (listener.weakTiProxy.get() != null) {
-									if (!data.containsKey("source")) {
-										data.put("source", listener.weakTiProxy.get());
-									}
-									invoked = listener.invoke(eventName, data);
+
+				for (TiListener listener : snapshot) {
+					boolean invoked = false;
+					try {
+						TiProxy source = listener.weakTiProxy.get();
+						if (source != null && listener.policy != null && !listener.policy.shouldDeliver()) {
+							// Rate limited, delivered later unless a newer event replaces it. Plain
+							// dictionaries are copied, the producer may change them after this.
+							TiDict held = data;
+							if (data instanceof TiEvent) {
+								if (!data.containsKey("source")) {
+									data.put("source", source);
 								}
-							} catch (Exception e) {
-								Log.e(LCAT, "Error invoking listener with id " + entry.getKey() + " on eventName '" + eventName + "'", e);
+							} else {
+								held = new TiDict(data);
+								held.put("source", source);
+							}
+							long delay = listener.policy.deferTrailing(held);
+							if (delay >= 0) {
+								scheduleTrailing(eventName, listener, delay);
+							}
+							invoked = true;
+						} else if (source != null) {
+							if (!data.containsKey("source")) {
+								data.put("source", source);
 							}
-							dispatched = dispatched || invoked;
+							invoked = listener.invoke(eventName, data);
 						}
+					} catch (Exception e) {
+						Log.e(LCAT, "Error invoking listener with id " + listener.id + " on eventName '" + eventName + "'", e);
 					}
+					dispatched = dispatched || invoked;
 				}
 			} else {
 				if(TRACE) {
@@ -547,6 +669,24 @@ public class TiContext implements TiEvaluator, ITiMenuDispatcherListener, ErrorR
 		return dispatched;
 	}
 
+	private void scheduleTrailing(final String eventName, final TiListener listener, long delay)
+	{
+		trailingHandler.postDelayed(new Runnable() {
+			public void run() {
+				TiDict data = listener.policy.takeTrailing();
+				if (data != null) {
+					try {
+						listener.invoke(eventName, data);
+					} catch (Exception e) {
+						Log.e(LCAT, "Error invoking listener with id " + listener.id + " on eventName '" + eventName + "'", e);
+					} finally {
+						TiEvent.recycle(data);
+					}
+				}
+			}
+		}, delay);
+	}
+
 	public void addOnLifecycleEventListener(OnLifecycleEvent listener) {
 		lifecycleListeners.add(new WeakReference<OnLifecycleEvent>(listener));
 	}
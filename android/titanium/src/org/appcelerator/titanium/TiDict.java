@@ -6,9 +6,16 @@
  */
 package org.appcelerator.titanium;
 
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConvert;
@@ -16,25 +23,58 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+/**
+ * String keyed dictionary used for property sets, event payloads and bridge conversions.
+ *
+ * Entries live in flat arrays with open addressing (linear probing, deletes shift the
+ * cluster back so there are no tombstones) instead of one entry object per mapping.
+ * Integer, Double and Boolean values are stored unboxed in a parallel long array and
+ * only boxed when read through the Map interface, the typed getters read them directly.
+ *
+ * TiDict is still a HashMap so that code taking one keeps working, but none of HashMap's
+ * own table is used: every HashMap method is overridden to go to the arrays.
+ */
 public class TiDict
 	extends HashMap<String, Object>
 {
 	private static final long serialVersionUID = 1L;
 	private static final int INITIAL_SIZE = 5;
 
+	private static final byte KIND_OBJECT = 0;
+	private static final byte KIND_INT = 1;
+	private static final byte KIND_DOUBLE = 2;
+	private static final byte KIND_BOOLEAN = 3;
+
+	private String[] keys;
+	private Object[] values;
+	private long[] prims;
+	private byte[] kinds;
+	private int size;
+	private int threshold;
+	private transient int modCount;
+
+	// HashMap allowed a null key, keep supporting it outside the table
+	private boolean hasNullKey;
+	private Object nullKeyValue;
+
+	private transient Set<Map.Entry<String, Object>> entrySet;
+	private transient Set<String> keySet;
+	private transient Collection<Object> valuesView;
+
 	public TiDict() {
 		this(INITIAL_SIZE);
 	}
 
 	public TiDict(JSONObject object) throws JSONException {
+		this(object.length());
 		for (Iterator<String> iter = object.keys(); iter.hasNext();) {
 			String key = iter.next();
-			Object value = object.get(key);			
+			Object value = object.get(key);
 			Object json = fromJSON(value);
 			put(key, json);
 		}
 	}
-	
+
 	public static Object fromJSON(Object value) {
 		try {
 			if (value instanceof JSONObject) {
@@ -52,16 +92,618 @@ public class TiDict
 		}
 		return value;
 	}
-	
+
 	public TiDict(Map<? extends String, ? extends Object> map) {
-		super(map);
+		this(map.size());
+		putAll(map);
+	}
+
+	public TiDict(int size)
+	{
+		int capacity = 4;
+		while (capacity * 3 < size * 4) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new String[capacity];
+		values = new Object[capacity];
+		if (kinds != null) {
+			prims = new long[capacity];
+			kinds = new byte[capacity];
+		}
+		threshold = capacity * 3 / 4;
+	}
+
+	private static int hash(Object key)
+	{
+		int h = key.hashCode();
+		// Fold the high bits in, only the low bits pick the slot
+		return h ^ (h >>> 16);
+	}
+
+	// Index of key or -1
+	private int indexOf(Object key)
+	{
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		String k;
+		while ((k = keys[i]) != null) {
+			if (k == key || k.equals(key)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	// Index where key is or should be inserted
+	private int slotFor(String key)
+	{
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		String k;
+		while ((k = keys[i]) != null) {
+			if (k == key || k.equals(key)) {
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private byte kindAt(int i) {
+		return kinds == null ? KIND_OBJECT : kinds[i];
+	}
+
+	// Primitive storage is only allocated once a primitive value is stored
+	private void ensurePrimitives()
+	{
+		if (kinds == null) {
+			prims = new long[keys.length];
+			kinds = new byte[keys.length];
+		}
+	}
+
+	private Object valueAt(int i)
+	{
+		switch (kindAt(i)) {
+			case KIND_INT : return Integer.valueOf((int) prims[i]);
+			case KIND_DOUBLE : return Double.valueOf(Double.longBitsToDouble(prims[i]));
+			case KIND_BOOLEAN : return Boolean.valueOf(prims[i] != 0);
+		}
+		return values[i];
+	}
+
+	private void resize()
+	{
+		String[] oldKeys = keys;
+		Object[] oldValues = values;
+		long[] oldPrims = prims;
+		byte[] oldKinds = kinds;
+
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int j = slotFor(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				if (oldKinds != null) {
+					prims[j] = oldPrims[i];
+					kinds[j] = oldKinds[i];
+				}
+			}
+		}
+	}
+
+	// Returns the slot for key, adding it if needed
+	private int insert(String key)
+	{
+		int i = slotFor(key);
+		if (keys[i] == null) {
+			if (size >= threshold) {
+				resize();
+				i = slotFor(key);
+			}
+			keys[i] = key;
+			values[i] = null;
+			if (kinds != null) {
+				kinds[i] = KIND_OBJECT;
+			}
+			size++;
+			modCount++;
+		}
+		return i;
+	}
+
+	private void removeAt(int i)
+	{
+		int mask = keys.length - 1;
+		keys[i] = null;
+		values[i] = null;
+		size--;
+		modCount++;
+
+		// Move back entries of the same cluster that would no longer be reachable
+		int j = (i + 1) & mask;
+		while (keys[j] != null) {
+			int home = hash(keys[j]) & mask;
+			if ((j > i && (home <= i || home > j)) || (j < i && (home <= i && home > j))) {
+				keys[i] = keys[j];
+				values[i] = values[j];
+				if (kinds != null) {
+					prims[i] = prims[j];
+					kinds[i] = kinds[j];
+				}
+				keys[j] = null;
+				values[j] = null;
+				i = j;
+			}
+			j = (j + 1) & mask;
+		}
+	}
+
+	@Override
+	public int size() {
+		return hasNullKey ? size + 1 : size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		if (key == null) {
+			return hasNullKey;
+		}
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key)
+	{
+		if (key == null) {
+			return nullKeyValue;
+		}
+		int i = indexOf(key);
+		return i < 0 ? null : valueAt(i);
+	}
+
+	@Override
+	public Object put(String key, Object value)
+	{
+		if (key == null) {
+			Object old = nullKeyValue;
+			hasNullKey = true;
+			nullKeyValue = value;
+			return old;
+		}
+
+		int i = insert(key);
+		Object old = valueAt(i);
+		if (value instanceof Integer) {
+			setInt(i, (Integer) value);
+		} else if (value instanceof Double) {
+			setDouble(i, (Double) value);
+		} else if (value instanceof Boolean) {
+			setBoolean(i, (Boolean) value);
+		} else {
+			values[i] = value;
+			if (kinds != null) {
+				kinds[i] = KIND_OBJECT;
+			}
+		}
+		return old;
+	}
+
+	private void setInt(int i, int value)
+	{
+		ensurePrimitives();
+		values[i] = null;
+		prims[i] = value;
+		kinds[i] = KIND_INT;
+	}
+
+	private void setDouble(int i, double value)
+	{
+		ensurePrimitives();
+		values[i] = null;
+		prims[i] = Double.doubleToRawLongBits(value);
+		kinds[i] = KIND_DOUBLE;
+	}
+
+	private void setBoolean(int i, boolean value)
+	{
+		ensurePrimitives();
+		values[i] = null;
+		prims[i] = value ? 1 : 0;
+		kinds[i] = KIND_BOOLEAN;
+	}
+
+	public void putInt(String key, int value)
+	{
+		if (key == null) {
+			put(key, Integer.valueOf(value));
+			return;
+		}
+		setInt(insert(key), value);
+	}
+
+	public void putDouble(String key, double value)
+	{
+		if (key == null) {
+			put(key, Double.valueOf(value));
+			return;
+		}
+		setDouble(insert(key), value);
+	}
+
+	public void putBoolean(String key, boolean value)
+	{
+		if (key == null) {
+			put(key, Boolean.valueOf(value));
+			return;
+		}
+		setBoolean(insert(key), value);
+	}
+
+	@Override
+	public Object remove(Object key)
+	{
+		if (key == null) {
+			Object old = nullKeyValue;
+			hasNullKey = false;
+			nullKeyValue = null;
+			return old;
+		}
+
+		int i = indexOf(key);
+		if (i < 0) {
+			return null;
+		}
+		Object old = valueAt(i);
+		removeAt(i);
+		return old;
+	}
+
+	@Override
+	public void clear()
+	{
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
+		}
+		size = 0;
+		hasNullKey = false;
+		nullKeyValue = null;
+		modCount++;
+	}
+
+	@Override
+	public boolean containsValue(Object value)
+	{
+		if (hasNullKey && (value == null ? nullKeyValue == null : value.equals(nullKeyValue))) {
+			return true;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				Object v = valueAt(i);
+				if (value == null ? v == null : value.equals(v)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> map)
+	{
+		for (Map.Entry<? extends String, ? extends Object> e : map.entrySet()) {
+			put(e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * @return a TiDict with the same mappings. HashMap's clone would copy its own empty
+	 * table and share the arrays.
+	 */
+	@Override
+	public Object clone() {
+		return new TiDict(this);
 	}
 
-	public TiDict(int size) {
-		super(size);
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet()
+	{
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					return new EntryIterator();
+				}
+
+				@Override
+				public int size() {
+					return TiDict.this.size();
+				}
+
+				@Override
+				public void clear() {
+					TiDict.this.clear();
+				}
+			};
+		}
+		return entrySet;
 	}
 
-	public boolean getBoolean(String key) {
+	// Iterates the keys directly instead of going through entries
+	@Override
+	public Set<String> keySet()
+	{
+		if (keySet == null) {
+			keySet = new AbstractSet<String>() {
+				@Override
+				public Iterator<String> iterator() {
+					return new KeyIterator();
+				}
+
+				@Override
+				public int size() {
+					return TiDict.this.size();
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return containsKey(o);
+				}
+
+				@Override
+				public boolean remove(Object o)
+				{
+					if (containsKey(o)) {
+						TiDict.this.remove(o);
+						return true;
+					}
+					return false;
+				}
+
+				@Override
+				public void clear() {
+					TiDict.this.clear();
+				}
+			};
+		}
+		return keySet;
+	}
+
+	@Override
+	public Collection<Object> values()
+	{
+		if (valuesView == null) {
+			valuesView = new AbstractCollection<Object>() {
+				@Override
+				public Iterator<Object> iterator() {
+					return new ValueIterator();
+				}
+
+				@Override
+				public int size() {
+					return TiDict.this.size();
+				}
+
+				@Override
+				public boolean contains(Object o) {
+					return containsValue(o);
+				}
+
+				@Override
+				public void clear() {
+					TiDict.this.clear();
+				}
+			};
+		}
+		return valuesView;
+	}
+
+	// HashMap would write its own empty table, the mappings are written as a plain HashMap
+	// instead. Subclasses need their own writeReplace, like TiEvent's.
+	private Object writeReplace() {
+		return new SerializedForm(this);
+	}
+
+	private static class SerializedForm implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		private HashMap<String, Object> map;
+
+		SerializedForm(TiDict dict) {
+			map = new HashMap<String, Object>(dict);
+		}
+
+		private Object readResolve() {
+			return new TiDict(map);
+		}
+	}
+
+	private class Entry implements Map.Entry<String, Object>
+	{
+		private String key;
+		private int index;
+
+		Entry(String key, int index) {
+			this.key = key;
+			this.index = index;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public Object getValue()
+		{
+			// The slot is only trusted while it still holds this key
+			if (index >= 0 && index < keys.length && keys[index] == key) {
+				return valueAt(index);
+			}
+			return get(key);
+		}
+
+		public Object setValue(Object value) {
+			return put(key, value);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Map.Entry<?, ?>)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			Object value = getValue();
+			return (key == null ? e.getKey() == null : key.equals(e.getKey())) &&
+				(value == null ? e.getValue() == null : value.equals(e.getValue()));
+		}
+
+		@Override
+		public int hashCode()
+		{
+			Object value = getValue();
+			return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+
+	private abstract class TableIterator
+	{
+		private int next = -1;
+		private String current;
+		private boolean currentValid;
+		private boolean nullKeyPending = hasNullKey;
+		private int expectedModCount = modCount;
+
+		// After a remove the table may have been rearranged, the keys left to visit are
+		// copied out and iteration continues over the copy.
+		private String[] remaining;
+		private int remainingIndex;
+
+		// Slot of the last key returned, -1 if it came from the null key or the copy
+		protected int lastIndex;
+
+		TableIterator() {
+			advance();
+		}
+
+		private void advance()
+		{
+			next++;
+			while (next < keys.length && keys[next] == null) {
+				next++;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			if (nullKeyPending) {
+				return true;
+			}
+			if (remaining != null) {
+				return remainingIndex < remaining.length;
+			}
+			return next < keys.length;
+		}
+
+		protected String nextKey()
+		{
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastIndex = -1;
+			if (nullKeyPending) {
+				nullKeyPending = false;
+				current = null;
+			} else if (remaining != null) {
+				current = remaining[remainingIndex++];
+			} else {
+				lastIndex = next;
+				current = keys[next];
+				advance();
+			}
+			currentValid = true;
+			return current;
+		}
+
+		public void remove()
+		{
+			if (!currentValid) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (remaining == null) {
+				int count = 0;
+				for (int i = next; i < keys.length; i++) {
+					if (keys[i] != null) {
+						count++;
+					}
+				}
+				remaining = new String[count];
+				for (int i = next, j = 0; i < keys.length; i++) {
+					if (keys[i] != null) {
+						remaining[j++] = keys[i];
+					}
+				}
+			}
+			TiDict.this.remove(current);
+			currentValid = false;
+			expectedModCount = modCount;
+		}
+	}
+
+	private class EntryIterator extends TableIterator implements Iterator<Map.Entry<String, Object>>
+	{
+		public Map.Entry<String, Object> next() {
+			String key = nextKey();
+			return new Entry(key, lastIndex);
+		}
+	}
+
+	private class KeyIterator extends TableIterator implements Iterator<String>
+	{
+		public String next() {
+			return nextKey();
+		}
+	}
+
+	private class ValueIterator extends TableIterator implements Iterator<Object>
+	{
+		public Object next()
+		{
+			String key = nextKey();
+			return lastIndex >= 0 ? valueAt(lastIndex) : get(key);
+		}
+	}
+
+	public boolean getBoolean(String key)
+	{
+		int i = key == null ? -1 : indexOf(key);
+		if (i >= 0 && kindAt(i) == KIND_BOOLEAN) {
+			return prims[i] != 0;
+		}
 		return TiConvert.toBoolean(get(key));
 	}
 
@@ -86,10 +728,42 @@ public class TiDict
 	}
 
 	public Integer getInt(String key) {
+		return getIntValue(key);
+	}
+
+	/**
+	 * Like {@link #getInt} without boxing values stored with {@link #putInt} or {@link #putDouble}.
+	 */
+	public int getIntValue(String key)
+	{
+		int i = key == null ? -1 : indexOf(key);
+		if (i >= 0 && kinds != null) {
+			if (kinds[i] == KIND_INT) {
+				return (int) prims[i];
+			} else if (kinds[i] == KIND_DOUBLE) {
+				return (int) Double.longBitsToDouble(prims[i]);
+			}
+		}
 		return TiConvert.toInt(get(key));
 	}
 
 	public Double getDouble(String key) {
+		return getDoubleValue(key);
+	}
+
+	/**
+	 * Like {@link #getDouble} without boxing values stored with {@link #putInt} or {@link #putDouble}.
+	 */
+	public double getDoubleValue(String key)
+	{
+		int i = key == null ? -1 : indexOf(key);
+		if (i >= 0 && kinds != null) {
+			if (kinds[i] == KIND_DOUBLE) {
+				return Double.longBitsToDouble(prims[i]);
+			} else if (kinds[i] == KIND_INT) {
+				return (int) prims[i];
+			}
+		}
 		return TiConvert.toDouble(get(key));
 	}
 
@@ -104,7 +778,7 @@ public class TiDict
 	public boolean isNull(String key) {
 		return (get(key) == null);
 	}
-	
+
 	@Override
 	public String toString() {
 		return new JSONObject(this).toString();
@@ -6,11 +6,11 @@
  */
 package org.appcelerator.titanium;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
+import org.appcelerator.titanium.util.TiValueCache;
 
 import android.util.TypedValue;
 
@@ -23,8 +23,12 @@ public class TiDimension
 	public static final int COMPLEX_UNIT_PERCENT = TypedValue.COMPLEX_UNIT_MASK + 2;
 	public static final int COMPLEX_UNIT_AUTO = TypedValue.COMPLEX_UNIT_MASK + 3;
 
+	// Kept for compatibility, parsing no longer uses it
 	public static Pattern DIMENSION_PATTERN = Pattern.compile("(-?[0-9]*\\.?[0-9]+)\\W*(px|dp|dip|sp|sip|mm|pt|in|%)?");
 
+	// Parsed dimensions by raw string, these instances are only copied from
+	private static final TiValueCache<TiDimension> cache = new TiValueCache<TiDimension>("TiDimension", 256);
+
 	private double value;
 	private int units;
 
@@ -33,44 +37,103 @@ public class TiDimension
 		this.units = COMPLEX_UNIT_UNDEFINED;
 	}
 
+	public TiDimension(double value, int units) {
+		this.value = value;
+		this.units = units;
+	}
+
 	public TiDimension(String svalue)
 	{
 		this.units = TypedValue.COMPLEX_UNIT_SP;
 
 		if (svalue != null) {
-			Matcher m = DIMENSION_PATTERN.matcher(svalue.trim());
-			if (m.matches()) {
-				value = Float.parseFloat(m.group(1));
-
-				if (m.groupCount() == 2) {
-					String unit = m.group(2);
-					if ("px".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_PX;
-					} else if ("pt".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_PT;
-					} else if ("dp".equals(unit) || "dip".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_DIP;
-					} else if ("sp".equals(unit) || "sip".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_SP;
-					} else if ("%".equals(unit)) {
-						this.units = COMPLEX_UNIT_PERCENT;
-					} else if ("mm".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_MM;
-					} else if ("in".equals(unit)) {
-						this.units = TypedValue.COMPLEX_UNIT_IN;
-					} else {
-						if (DBG) {
-							if (unit != null) {
-								Log.w(LCAT, "Unknown unit: " + unit);
-							}
-						}
-					}
-				}
-			} else if (svalue.trim().equals("auto")) {
-				this.value = Integer.MIN_VALUE;
-				this.units = COMPLEX_UNIT_AUTO;
+			TiDimension parsed = cache.get(svalue);
+			if (parsed == null) {
+				parsed = parse(svalue);
+				cache.put(svalue, parsed);
+			}
+			this.value = parsed.value;
+			this.units = parsed.units;
+		}
+	}
+
+	/**
+	 * Accepts what DIMENSION_PATTERN matches: an optional sign, a decimal number,
+	 * optional non word characters and an optional unit. Anything else is 0sp
+	 * unless it's "auto".
+	 */
+	private static TiDimension parse(String svalue)
+	{
+		String s = svalue.trim();
+		int length = s.length();
+		int i = 0;
+
+		if (i < length && s.charAt(i) == '-') {
+			i++;
+		}
+		int digitsStart = i;
+		while (i < length && isDigit(s.charAt(i))) {
+			i++;
+		}
+		if (i + 1 < length && s.charAt(i) == '.' && isDigit(s.charAt(i + 1))) {
+			i++;
+			while (i < length && isDigit(s.charAt(i))) {
+				i++;
+			}
+		}
+		if (i == digitsStart) {
+			if (s.equals("auto")) {
+				return new TiDimension(Integer.MIN_VALUE, COMPLEX_UNIT_AUTO);
+			}
+			return new TiDimension(0, TypedValue.COMPLEX_UNIT_SP);
+		}
+		int numberEnd = i;
+
+		while (i < length && !isWordChar(s.charAt(i))) {
+			i++;
+		}
+
+		int units = -1;
+		String unit = s.substring(i);
+		if (unit.length() == 0) {
+			// The old pattern's \W* swallowed a trailing % before the unit group saw it
+			units = s.charAt(length - 1) == '%' ? COMPLEX_UNIT_PERCENT : TypedValue.COMPLEX_UNIT_SP;
+		} else if ("px".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_PX;
+		} else if ("pt".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_PT;
+		} else if ("dp".equals(unit) || "dip".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_DIP;
+		} else if ("sp".equals(unit) || "sip".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_SP;
+		} else if ("%".equals(unit)) {
+			units = COMPLEX_UNIT_PERCENT;
+		} else if ("mm".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_MM;
+		} else if ("in".equals(unit)) {
+			units = TypedValue.COMPLEX_UNIT_IN;
+		}
+
+		if (units == -1) {
+			if (DBG) {
+				Log.w(LCAT, "Unknown unit: " + unit);
 			}
+			return new TiDimension(0, TypedValue.COMPLEX_UNIT_SP);
 		}
+		return new TiDimension(Float.parseFloat(s.substring(0, numberEnd)), units);
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	// Same as the regex \w
+	private static boolean isWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+	}
+
+	public static TiValueCache<TiDimension> getCache() {
+		return cache;
 	}
 
 	public double getValue() {
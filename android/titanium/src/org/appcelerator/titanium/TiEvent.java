@@ -0,0 +1,215 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.appcelerator.titanium.util.Log;
+import org.appcelerator.titanium.util.TiConfig;
+
+/**
+ * A reusable event payload for events fired at a high rate (touch, sensors, map scrolling).
+ *
+ * <pre>
+ * TiEvent event = TiEvent.obtain("touchmove");
+ * event.putDouble("x", e.getX());
+ * event.putDouble("y", e.getY());
+ * proxy.fireEvent("touchmove", event);
+ * event.recycle();
+ * </pre>
+ *
+ * Events are reference counted. obtain() hands out one reference, every delivery queued on
+ * a Kroll thread takes another and drops it once the listener has run, so the last
+ * recycle() puts the event back in its type's pool whichever thread that happens on.
+ * Events stored as values of another event are recycled along with it. The typed put
+ * methods store numbers without boxing and clearing keeps the table, so firing from a warm
+ * pool doesn't allocate. Script never sees the pooled object itself, it is copied when
+ * converted for a listener.
+ */
+public class TiEvent extends TiDict
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final String LCAT = "TiEvent";
+	private static final boolean DBG = TiConfig.LOGD;
+
+	private static final int MAX_POOLED = 8;
+
+	private static final ConcurrentHashMap<String, Pool> pools = new ConcurrentHashMap<String, Pool>();
+
+	private static class Pool
+	{
+		private final String type;
+		private final TiEvent[] free = new TiEvent[MAX_POOLED];
+		private int count;
+		private long obtained;
+		private long created;
+
+		Pool(String type) {
+			this.type = type;
+		}
+
+		synchronized TiEvent obtain()
+		{
+			obtained++;
+			if (count > 0) {
+				TiEvent event = free[--count];
+				free[count] = null;
+				return event;
+			}
+			created++;
+			return null;
+		}
+
+		synchronized void release(TiEvent event)
+		{
+			if (count < free.length) {
+				free[count++] = event;
+			}
+		}
+
+		synchronized TiDict toDict()
+		{
+			TiDict d = new TiDict();
+			d.put("obtained", obtained);
+			d.put("created", created);
+			d.put("pooled", count);
+			return d;
+		}
+	}
+
+	// Pool state doesn't survive serialization, see writeReplace
+	private final transient Pool pool;
+	private final transient AtomicInteger refs = new AtomicInteger();
+	private transient boolean hasNested;
+
+	private TiEvent(Pool pool)
+	{
+		super();
+		this.pool = pool;
+	}
+
+	/**
+	 * @return an empty event with type set, from the pool when one is free.
+	 */
+	public static TiEvent obtain(String type)
+	{
+		Pool pool = pools.get(type);
+		if (pool == null) {
+			pool = new Pool(type);
+			Pool existing = pools.putIfAbsent(type, pool);
+			if (existing != null) {
+				pool = existing;
+			}
+		}
+
+		TiEvent event = pool.obtain();
+		if (event == null) {
+			event = new TiEvent(pool);
+		}
+		event.refs.set(1);
+		event.put("type", type);
+		return event;
+	}
+
+	/**
+	 * Takes another reference, the event stays valid until it is recycled as many times.
+	 */
+	public TiEvent retain()
+	{
+		refs.incrementAndGet();
+		return this;
+	}
+
+	/**
+	 * Drops a reference, the last one clears the event and returns it to the pool.
+	 * The event must not be used after calling this.
+	 */
+	public void recycle()
+	{
+		int remaining = refs.decrementAndGet();
+		if (remaining == 0) {
+			if (hasNested) {
+				for (Object value : values()) {
+					recycle(value);
+				}
+				hasNested = false;
+			}
+			clear();
+			pool.release(this);
+		} else if (remaining < 0) {
+			refs.set(0);
+			Log.w(LCAT, "Event of type " + pool.type + " recycled more often than retained");
+		}
+	}
+
+	@Override
+	public Object put(String key, Object value)
+	{
+		if (value instanceof TiEvent) {
+			hasNested = true;
+		}
+		return super.put(key, value);
+	}
+
+	/**
+	 * @return a plain dictionary with this event's values, nested events are copied too.
+	 */
+	public TiDict copy()
+	{
+		TiDict d = new TiDict(size());
+		for (Map.Entry<String, Object> e : entrySet()) {
+			Object value = e.getValue();
+			if (value instanceof TiEvent) {
+				value = ((TiEvent) value).copy();
+			}
+			d.put(e.getKey(), value);
+		}
+		return d;
+	}
+
+	// Serialized as a plain dictionary, a pooled event can't be reconstructed
+	private Object writeReplace() {
+		return copy();
+	}
+
+	public static void retain(Object o)
+	{
+		if (o instanceof TiEvent) {
+			((TiEvent) o).retain();
+		}
+	}
+
+	public static void recycle(Object o)
+	{
+		if (o instanceof TiEvent) {
+			((TiEvent) o).recycle();
+		}
+	}
+
+	/**
+	 * Obtained and created counts for each event type, created only grows while pools are cold.
+	 */
+	public static TiDict getPoolStats()
+	{
+		TiDict stats = new TiDict();
+		for (Map.Entry<String, Pool> e : pools.entrySet()) {
+			stats.put(e.getKey(), e.getValue().toDict());
+		}
+		return stats;
+	}
+
+	public static void clearPools()
+	{
+		if (DBG) {
+			Log.d(LCAT, "Clearing event pools: " + getPoolStats());
+		}
+		pools.clear();
+	}
+}
@@ -0,0 +1,187 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+import org.appcelerator.titanium.util.TiConvert;
+
+import android.os.SystemClock;
+
+/**
+ * How events reach a single listener, from the options passed to addEventListener:
+ *
+ * <pre>
+ * proxy.addEventListener('update', callback, { delivery: 'latest', minInterval: 100 });
+ * </pre>
+ *
+ * delivery is one of "all" (the default, every event is queued), "latest" (while an event
+ * is waiting on the Kroll thread newer ones replace it) or "batch" (newer events are
+ * appended and the listener receives them as an events array). minInterval holds back
+ * events fired less than that many milliseconds after the last one that was delivered,
+ * the latest of them is delivered once the interval has passed so listeners always end
+ * up with the final state.
+ */
+public class TiEventPolicy
+{
+	public static final String PROPERTY_DELIVERY = "delivery";
+	public static final String PROPERTY_MIN_INTERVAL = "minInterval";
+
+	public static final String DELIVERY_ALL = "all";
+	public static final String DELIVERY_LATEST = "latest";
+	public static final String DELIVERY_BATCH = "batch";
+
+	public static final int MODE_ALL = 0;
+	public static final int MODE_LATEST = 1;
+	public static final int MODE_BATCH = 2;
+
+	private int mode;
+	private long minInterval;
+	private long lastDelivered;
+	private Object pending;
+
+	// The latest event held back by minInterval
+	private TiDict trailing;
+	private boolean trailingScheduled;
+	private boolean cancelled;
+
+	public TiEventPolicy(int mode, long minInterval)
+	{
+		this.mode = mode;
+		this.minInterval = minInterval;
+		this.lastDelivered = -1;
+	}
+
+	/**
+	 * @return the policy described by options or null when events should be delivered as
+	 * they are fired.
+	 */
+	public static TiEventPolicy fromOptions(TiDict options)
+	{
+		if (options == null) {
+			return null;
+		}
+
+		int mode = MODE_ALL;
+		String delivery = options.optString(PROPERTY_DELIVERY, DELIVERY_ALL);
+		if (DELIVERY_LATEST.equals(delivery)) {
+			mode = MODE_LATEST;
+		} else if (DELIVERY_BATCH.equals(delivery)) {
+			mode = MODE_BATCH;
+		} else if (!DELIVERY_ALL.equals(delivery)) {
+			throw new IllegalArgumentException("Unknown event delivery: " + delivery);
+		}
+
+		long minInterval = 0;
+		if (options.containsKey(PROPERTY_MIN_INTERVAL)) {
+			minInterval = TiConvert.toInt(options, PROPERTY_MIN_INTERVAL);
+		}
+
+		if (mode == MODE_ALL && minInterval <= 0) {
+			return null;
+		}
+		return new TiEventPolicy(mode, minInterval);
+	}
+
+	// The optional arguments after the listener, see TiProxy.addEventListener.
+	static TiEventPolicy fromOptions(Object[] options)
+	{
+		if (options == null || options.length == 0 || options[0] == null) {
+			return null;
+		}
+		if (!(options[0] instanceof TiDict)) {
+			throw new IllegalArgumentException("Event listener options must be a dictionary");
+		}
+		return fromOptions((TiDict) options[0]);
+	}
+
+	public int getMode() {
+		return mode;
+	}
+
+	public long getMinInterval() {
+		return minInterval;
+	}
+
+	/**
+	 * Applies minInterval, returns false if the event should be held back with
+	 * {@link #deferTrailing}.
+	 */
+	public synchronized boolean shouldDeliver()
+	{
+		if (minInterval <= 0) {
+			return true;
+		}
+		long now = SystemClock.uptimeMillis();
+		if (lastDelivered >= 0 && now - lastDelivered < minInterval) {
+			return false;
+		}
+		lastDelivered = now;
+
+		// This event is newer than any held back one
+		TiEvent.recycle(trailing);
+		trailing = null;
+		return true;
+	}
+
+	/**
+	 * Holds back data in place of any earlier held back event.
+	 *
+	 * @return the delay in milliseconds after which {@link #takeTrailing} has to be called,
+	 * or -1 if that is already scheduled.
+	 */
+	public synchronized long deferTrailing(TiDict data)
+	{
+		TiEvent.retain(data);
+		TiEvent.recycle(trailing);
+		trailing = data;
+		if (trailingScheduled || cancelled) {
+			return -1;
+		}
+		trailingScheduled = true;
+		return Math.max(0, lastDelivered + minInterval - SystemClock.uptimeMillis());
+	}
+
+	/**
+	 * @return the held back event to deliver now, or null if a newer one was delivered in
+	 * the meantime. The caller recycles it after delivery.
+	 */
+	public synchronized TiDict takeTrailing()
+	{
+		trailingScheduled = false;
+		TiDict data = trailing;
+		trailing = null;
+		if (data != null) {
+			if (cancelled) {
+				TiEvent.recycle(data);
+				return null;
+			}
+			lastDelivered = SystemClock.uptimeMillis();
+		}
+		return data;
+	}
+
+	/**
+	 * Called when the listener is removed, drops any held back event.
+	 */
+	public synchronized void cancel()
+	{
+		cancelled = true;
+		TiEvent.recycle(trailing);
+		trailing = null;
+	}
+
+	/**
+	 * The delivery waiting on the Kroll thread, if any. Only used by KrollContext while
+	 * holding its callback queue lock.
+	 */
+	public Object getPending() {
+		return pending;
+	}
+
+	public void setPending(Object pending) {
+		this.pending = pending;
+	}
+}
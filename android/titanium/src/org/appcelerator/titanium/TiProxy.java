@@ -6,7 +6,8 @@
  */
 package org.appcelerator.titanium;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.appcelerator.titanium.bridge.OnEventListenerChange;
@@ -16,6 +17,7 @@ import org.appcelerator.titanium.util.TiConfig;
 import org.appcelerator.titanium.util.TiConvert;
 
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
 
 public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListenerChange
@@ -31,41 +33,28 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 	protected static final int MSG_LAST_ID = 999;
 
 	private TiContext tiContext, creatingContext;
-	private Handler uiHandler;
-	private CountDownLatch waitForHandler;
+	private volatile Handler uiHandler;
 
 	public TiDict getConstants() {
 		return null;
 	}
 
-	// TODO consider using a single object or a pool of them.
-	private static class PropertyChangeHolder
+	private static class PropertyChange
 	{
-		private TiProxyListener modelListener;
-		private String key;
-		private Object current;
-		private Object value;
-		private TiProxy proxy;
-
-		PropertyChangeHolder(TiProxyListener modelListener, String key, Object current, Object value, TiProxy proxy)
-		{
-			this.modelListener = modelListener;
-			this.key = key;
-			this.current = current;
-			this.value = value;
-			this.proxy = proxy;
-		}
-
-		public void fireEvent() {
-			try {
-				modelListener.propertyChanged(key, current, value, proxy);
-			} finally {
-				modelListener = null;
-				proxy = null;
-			}
+		private Object oldValue;
+		private Object newValue;
+
+		PropertyChange(Object oldValue, Object newValue) {
+			this.oldValue = oldValue;
+			this.newValue = newValue;
 		}
 	}
 
+	// Changes made off the UI thread waiting for the next flush, guarded by lock
+	private final Object lock = new Object();
+	private LinkedHashMap<String, PropertyChange> pendingChanges;
+	private boolean flushScheduled;
+
 	protected TiDict dynprops; // Dynamic properties
 	protected static AtomicInteger proxyCounter;
 	protected String proxyId; //TODO implement
@@ -81,25 +70,6 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 		}
 		this.tiContext = tiContext;
 		this.proxyId = "proxy$" + proxyCounter.incrementAndGet();
-
-		final TiProxy me = this;
-		waitForHandler = new CountDownLatch(1);
-
-		if (tiContext.isUIThread()) {
-			uiHandler = new Handler(me);
-			waitForHandler.countDown();
-		} else {
-			tiContext.getActivity().runOnUiThread(new Runnable()
-			{
-				public void run() {
-					if (DBG) {
-						Log.i(LCAT, "Creating handler on UI thread for Proxy");
-					}
-					uiHandler = new Handler(me);
-					waitForHandler.countDown();
-				}
-			});
-		}
 	}
 
 	public void setModelListener(TiProxyListener modelListener) {
@@ -119,15 +89,33 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 		}
 		return oldContext;
 	}
-	protected Handler getUIHandler() {
-		try {
-			waitForHandler.await();
-		} catch (InterruptedException e) {
-			// ignore
+	/**
+	 * The proxy's own UI thread handler, created on first use. Proxies that never send
+	 * UI messages (most data and row proxies) don't get one.
+	 */
+	protected Handler getUIHandler()
+	{
+		Handler h = uiHandler;
+		if (h == null) {
+			synchronized (lock) {
+				if (uiHandler == null) {
+					final TiProxy me = this;
+					// Property changes still waiting for their frame are applied before any other
+					// UI message from this proxy so that messages see the values set before them.
+					uiHandler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
+						public boolean handleMessage(Message msg) {
+							if (msg.what != MSG_MODEL_PROPERTY_CHANGE) {
+								flushPropertyChanges();
+							}
+							return me.handleMessage(msg);
+						}
+					});
+				}
+				h = uiHandler;
+			}
 		}
-		return uiHandler;
+		return h;
 	}
-
 	public TiContext getTiContext() {
 		return tiContext;
 	}
@@ -139,8 +127,7 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 	public boolean handleMessage(Message msg) {
 		switch (msg.what) {
 			case MSG_MODEL_PROPERTY_CHANGE : {
-				PropertyChangeHolder pch = (PropertyChangeHolder) msg.obj;
-				pch.fireEvent();
+				flushPropertyChanges();
 				return true;
 			}
 			case MSG_LISTENER_ADDED : {
@@ -194,16 +181,124 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 			if ((current == null && value != null) || (value == null && current != null) || (!current.equals(value))) {
 				if (modelListener != null) {
 					if (tiContext.isUIThread()) {
+						// Anything queued from the JS thread was set before this
+						flushPropertyChanges();
 						modelListener.propertyChanged(key, current, value, this);
 					} else {
-						PropertyChangeHolder pch = new PropertyChangeHolder(modelListener, key, current, value, this);
-						getUIHandler().obtainMessage(MSG_MODEL_PROPERTY_CHANGE, pch).sendToTarget();
+						queuePropertyChange(key, current, value);
 					}
 				}
 			}
 		}
 	}
 
+	private void queuePropertyChange(String key, Object oldValue, Object newValue)
+	{
+		boolean schedule = false;
+		synchronized (lock) {
+			if (pendingChanges == null) {
+				pendingChanges = new LinkedHashMap<String, PropertyChange>();
+			}
+			PropertyChange change = pendingChanges.get(key);
+			if (change == null) {
+				pendingChanges.put(key, new PropertyChange(oldValue, newValue));
+			} else {
+				// Keep the value the listener last saw as the old value
+				change.newValue = newValue;
+			}
+			if (!flushScheduled) {
+				flushScheduled = true;
+				schedule = true;
+			}
+		}
+
+		if (schedule) {
+			// Applied on the next frame so a burst of sets from the JS thread is applied together
+			tiContext.getUIDispatcher().requestPropertyFlush(this);
+		}
+	}
+
+	/**
+	 * Applies the property changes queued from other threads as one group. Must be called
+	 * on the UI thread.
+	 */
+	protected void flushPropertyChanges()
+	{
+		LinkedHashMap<String, PropertyChange> changes = null;
+		synchronized (lock) {
+			changes = pendingChanges;
+			pendingChanges = null;
+			flushScheduled = false;
+		}
+
+		TiProxyListener listener = modelListener;
+		if (changes == null || listener == null) {
+			return;
+		}
+
+		TiProxyBatchListener batchListener = batchListenerOf(listener);
+		if (batchListener != null) {
+			batchListener.beginPropertyChanges(this);
+		}
+		try {
+			for (Map.Entry<String, PropertyChange> entry : changes.entrySet()) {
+				PropertyChange change = entry.getValue();
+				listener.propertyChanged(entry.getKey(), change.oldValue, change.newValue, this);
+			}
+		} finally {
+			if (batchListener != null) {
+				batchListener.endPropertyChanges(this);
+			}
+		}
+	}
+
+	private static TiProxyBatchListener batchListenerOf(TiProxyListener listener)
+	{
+		if (listener instanceof TiProxyBatchListener) {
+			return (TiProxyBatchListener) listener;
+		}
+		return null;
+	}
+
+	/**
+	 * Sets several properties at once. They reach the view as a single group, with at most
+	 * one layout, without waiting for the next frame.
+	 */
+	public void applyProperties(TiDict props)
+	{
+		if (props == null) {
+			return;
+		}
+
+		boolean uiThread = tiContext.isUIThread();
+		TiProxyBatchListener listener = uiThread ? batchListenerOf(modelListener) : null;
+		if (uiThread) {
+			flushPropertyChanges();
+		}
+		if (listener != null) {
+			listener.beginPropertyChanges(this);
+		}
+		try {
+			for (String key : props.keySet()) {
+				internalSetDynamicValue(key, props.get(key), true);
+			}
+		} finally {
+			if (listener != null) {
+				listener.endPropertyChanges(this);
+			}
+		}
+
+		if (!uiThread) {
+			boolean flush = false;
+			synchronized (lock) {
+				flush = flushScheduled;
+			}
+			if (flush) {
+				tiContext.getUIDispatcher().requestPropertyFlush(this, true);
+			}
+		}
+	}
+
 	public TiDict getDynamicProperties() {
 		if (dynprops == null) {
 			dynprops = new TiDict();
@@ -211,7 +306,11 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 		return dynprops;
 	}
 
-	public int addEventListener(String eventName, Object listener) {
+	/**
+	 * @param options script may pass a dictionary with a delivery policy for high frequency
+	 * events as a third argument, see {@link TiEventPolicy}.
+	 */
+	public int addEventListener(String eventName, Object listener, Object... options) {
 		int listenerId = -1;
 
 		if (DBG) {
@@ -219,7 +318,7 @@ public class TiProxy implements Handler.Callback, TiDynamicMethod, OnEventListen
 		}
 		TiContext ctx = getTiContext();
 		if (ctx != null) {
-			listenerId = ctx.addEventListener(eventName, this, listener);
+			listenerId = ctx.addEventListener(eventName, this, listener, TiEventPolicy.fromOptions(options));
 		}
 
 		return listenerId;
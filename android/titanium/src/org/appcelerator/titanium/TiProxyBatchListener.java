@@ -0,0 +1,17 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+/**
+ * Optionally implemented by a {@link TiProxyListener} that wants to know when a group of
+ * propertyChanged calls is applied together, for instance to lay out once at the end.
+ */
+public interface TiProxyBatchListener
+{
+	void beginPropertyChanges(TiProxy proxy);
+	void endPropertyChanges(TiProxy proxy);
+}
@@ -0,0 +1,97 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import org.appcelerator.titanium.util.Log;
+import org.appcelerator.titanium.util.TiConfig;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+/**
+ * One UI thread handler per TiContext for work that every proxy needs, so proxies don't
+ * have to own a Handler for it. Proxies with pending property changes are queued by id
+ * and all of them are flushed by a single message on the next frame.
+ */
+public class TiUIDispatcher extends Handler
+{
+	private static final String LCAT = "TiUIDispatcher";
+	private static final boolean DBG = TiConfig.LOGD;
+
+	private static final int MSG_FLUSH_PROPERTIES = 100;
+
+	private static final long FRAME_INTERVAL = 16; // ms
+
+	// Guarded by itself
+	private LinkedHashMap<String, TiProxy> pendingFlush;
+
+	public TiUIDispatcher()
+	{
+		// Bound to the main looper so it can be created from any thread
+		super(Looper.getMainLooper());
+		pendingFlush = new LinkedHashMap<String, TiProxy>();
+	}
+
+	/**
+	 * Queues the proxy's property changes for the next frame.
+	 */
+	public void requestPropertyFlush(TiProxy proxy) {
+		requestPropertyFlush(proxy, false);
+	}
+
+	/**
+	 * @param immediate flush as soon as the UI thread gets to it instead of on the next frame
+	 */
+	public void requestPropertyFlush(TiProxy proxy, boolean immediate)
+	{
+		boolean schedule = false;
+		synchronized (pendingFlush) {
+			schedule = pendingFlush.isEmpty();
+			pendingFlush.put(proxy.getProxyId(), proxy);
+		}
+
+		if (immediate) {
+			removeMessages(MSG_FLUSH_PROPERTIES);
+			sendEmptyMessage(MSG_FLUSH_PROPERTIES);
+		} else if (schedule) {
+			long now = SystemClock.uptimeMillis();
+			long nextFrame = (now / FRAME_INTERVAL + 1) * FRAME_INTERVAL;
+			sendMessageAtTime(obtainMessage(MSG_FLUSH_PROPERTIES), nextFrame);
+		}
+	}
+
+	@Override
+	public void handleMessage(Message msg)
+	{
+		switch (msg.what) {
+			case MSG_FLUSH_PROPERTIES : {
+				ArrayList<TiProxy> proxies = null;
+				synchronized (pendingFlush) {
+					proxies = new ArrayList<TiProxy>(pendingFlush.values());
+					pendingFlush.clear();
+				}
+				for (TiProxy proxy : proxies) {
+					try {
+						proxy.flushPropertyChanges();
+					} catch (Throwable t) {
+						Log.e(LCAT, "Error applying properties of " + proxy.getProxyId() + ": " + t.getMessage(), t);
+					}
+				}
+				if (DBG) {
+					Log.d(LCAT, "Flushed properties of " + proxies.size() + " proxies");
+				}
+				return;
+			}
+		}
+		super.handleMessage(msg);
+	}
+}
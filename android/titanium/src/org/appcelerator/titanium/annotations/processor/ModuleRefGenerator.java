@@ -3,8 +3,11 @@ package org.appcelerator.titanium.annotations.processor;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,7 +25,12 @@ import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
@@ -35,8 +43,12 @@ import org.appcelerator.titanium.annotations.manifest.Ti.version;
  * This is expected to be run as a pre-processor to the actual compile of the module
  * Users can extend from the class that's generated to add their own attributes if needed
  *
+ * For every TiProxy subclass (modules included) in the compilation a KrollBinding is
+ * also generated so that KrollMethod can call into the proxy without reflection.
+ *
  */
-@SupportedAnnotationTypes({"org.appcelerator.titanium.annotations.manifest.Ti.module"})
+// Bindings are generated for proxies without any annotation, so ask to see every round.
+@SupportedAnnotationTypes({"*"})
 @SupportedSourceVersion(SourceVersion.RELEASE_6)
 @SupportedOptions({"projectName","destinationFolder"})
 public class ModuleRefGenerator extends AbstractProcessor {
@@ -46,6 +58,11 @@ public class ModuleRefGenerator extends AbstractProcessor {
 	 */
 	private boolean dbg = false;
 
+	private static final String PROXY_CLASS = "org.appcelerator.titanium.TiProxy";
+	private static final String BINDING_SUFFIX = "Binding";
+	private static final String FACTORY_SUFFIX = "Factory";
+	private static final String CONTEXT_CLASS = "org.appcelerator.titanium.TiContext";
+
 	/**
 	 * Placeholder for gathered annotations
 	 */
@@ -54,13 +71,21 @@ public class ModuleRefGenerator extends AbstractProcessor {
 	 * The package name is derrived from the class that contains the annotation
 	 */
 	private String packageName;
+
+	/**
+	 * Proxy classes that have already had a binding generated
+	 */
+	private Set<String> boundProxies = new HashSet<String>();
 	
 	@Override
 	public boolean process(final Set<? extends TypeElement> annotations, RoundEnvironment env) {
 				
 		if (!env.processingOver()) {
 			
-			projectAttributes = new HashMap<ExecutableElement, AnnotationValue>();
+			// Generated bindings cause additional rounds, don't lose what the first one found
+			if (projectAttributes == null) {
+				projectAttributes = new HashMap<ExecutableElement, AnnotationValue>();
+			}
 			Set<? extends Element> elements = env.getRootElements();
 			
 			if (dbg) {
@@ -70,7 +95,12 @@ public class ModuleRefGenerator extends AbstractProcessor {
 
 			for (Element element : elements) {
 				handleRootElementAnnotationMirrors(element);
-			}			
+			}
+			for (TypeElement type : ElementFilter.typesIn(elements)) {
+				if (isProxyType(type)) {
+					generateBindingClass(type);
+				}
+			}
 		} else {
 			if (projectAttributes.isEmpty()) {
 				// Nothing to process
@@ -79,7 +109,8 @@ public class ModuleRefGenerator extends AbstractProcessor {
 			}
 			debugLog("Processing Complete");
 		}
-		return true;
+		// Don't claim annotations other processors may be interested in.
+		return false;
 	}
 	
 	@Override
@@ -122,6 +153,10 @@ public class ModuleRefGenerator extends AbstractProcessor {
 					this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "\nEntity: "+entityName, aElement, mirror);
 				}
 				
+				if (aElement.getKind() == ElementKind.CLASS) {
+					generateModuleFactoryClass((TypeElement) aElement);
+				}
+
 				// Iterate through the annotations now - adding, when needed, to the projectAttributes
 				for (Map.Entry<? extends ExecutableElement, ?extends AnnotationValue> mirrorEntry : mirrorMap.entrySet()) {
 					projectAttributes.put(mirrorEntry.getKey(), mirrorEntry.getValue());
@@ -242,6 +277,248 @@ public class ModuleRefGenerator extends AbstractProcessor {
 		}
 	}
 	
+	/**
+	 * Generates the KrollModuleFactory for a module so KrollModuleRegistry can create it
+	 * without looking up its constructor.
+	 *
+	 * @param type {@link TypeElement} the class annotated with Ti.module
+	 */
+	private void generateModuleFactoryClass(TypeElement type) {
+		String modulePackage = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String moduleName = type.getSimpleName().toString();
+		String factoryName = moduleName + FACTORY_SUFFIX;
+
+		String args = null;
+		for (ExecutableElement ctor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (!ctor.getModifiers().contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			List<? extends VariableElement> params = ctor.getParameters();
+			if (params.isEmpty()) {
+				args = "";
+			} else if (params.size() == 1 && params.get(0).asType().toString().equals(CONTEXT_CLASS)) {
+				args = "context";
+			}
+		}
+		if (args == null) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+				"No public constructor taking a TiContext, not generating " + factoryName, type);
+			return;
+		}
+
+		Writer writer = null;
+		try {
+			JavaFileObject jfo = this.processingEnv.getFiler().createSourceFile("src." + modulePackage + "." + factoryName, type);
+			writer = jfo.openWriter();
+			writer.write(String.format("/* Generated on %s */\n",new Date()));
+			writer.write("/* by Titanium Appcelerator */\n");
+			writer.write(String.format("\npackage %s;\n",modulePackage));
+			writer.write(String.format("\nimport org.appcelerator.titanium.TiContext;\n"));
+			writer.write(String.format("import org.appcelerator.titanium.kroll.KrollModuleFactory;\n\n"));
+			writer.write(String.format("public class %s implements KrollModuleFactory\n", factoryName));
+			writer.write("{\n");
+			writer.write(String.format("%4spublic Object createModule(TiContext context)\n", ""));
+			writer.write(String.format("%4s{\n", ""));
+			writer.write(String.format("%8sreturn new %s(%s);\n", "", moduleName, args));
+			writer.write(String.format("%4s}\n", ""));
+			writer.write("}\n");
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (null != writer) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Swallow
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param type {@link TypeElement} a root element of the compilation
+	 * @return true if the type is a public TiProxy subclass that can be bound
+	 */
+	private boolean isProxyType(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.PUBLIC)) {
+			return false;
+		}
+		if (!type.getTypeParameters().isEmpty() || boundProxies.contains(type.getQualifiedName().toString())) {
+			return false;
+		}
+		TypeElement proxyType = this.processingEnv.getElementUtils().getTypeElement(PROXY_CLASS);
+		if (proxyType == null) {
+			return false;
+		}
+		return this.processingEnv.getTypeUtils().isSubtype(type.asType(), proxyType.asType());
+	}
+
+	/**
+	 * Collects the public instance methods Kroll may call on the type, keyed by name.
+	 * Names that remain overloaded after removing overridden methods are left out so
+	 * they continue to resolve through TiApplication.methodFor.
+	 *
+	 * @param type {@link TypeElement} the proxy class
+	 * @return method name to method, in declaration order
+	 */
+	private Map<String, ExecutableElement> collectBindableMethods(TypeElement type) {
+		Map<String, List<ExecutableElement>> candidates = new LinkedHashMap<String, List<ExecutableElement>>();
+		List<? extends Element> members = this.processingEnv.getElementUtils().getAllMembers(type);
+
+		for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+			Set<Modifier> modifiers = method.getModifiers();
+			if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)) {
+				continue;
+			}
+			if (!method.getTypeParameters().isEmpty()) {
+				continue;
+			}
+			TypeElement owner = findEnclosingTypeElement(method.getEnclosingElement());
+			if (owner.getQualifiedName().toString().equals("java.lang.Object")) {
+				continue;
+			}
+
+			String name = method.getSimpleName().toString();
+			List<ExecutableElement> named = candidates.get(name);
+			if (named == null) {
+				named = new ArrayList<ExecutableElement>();
+				candidates.put(name, named);
+			}
+			named.add(method);
+		}
+
+		Map<String, ExecutableElement> result = new LinkedHashMap<String, ExecutableElement>();
+		for (Map.Entry<String, List<ExecutableElement>> entry : candidates.entrySet()) {
+			List<ExecutableElement> named = new ArrayList<ExecutableElement>(entry.getValue());
+			for (ExecutableElement a : entry.getValue()) {
+				for (ExecutableElement b : entry.getValue()) {
+					if (a != b && this.processingEnv.getElementUtils().overrides(a, b, type)) {
+						named.remove(b);
+					}
+				}
+			}
+			if (named.size() == 1) {
+				result.put(entry.getKey(), named.get(0));
+			} else if (dbg) {
+				debugLog("Not binding overloaded method " + type.getSimpleName() + "." + entry.getKey());
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Generates the KrollBinding for a proxy class: a table of parameter types and a switch
+	 * that calls each method directly.
+	 *
+	 * @param type {@link TypeElement} the proxy class
+	 */
+	private void generateBindingClass(TypeElement type) {
+		String proxyPackage = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String proxyName = type.getSimpleName().toString();
+		String bindingName = proxyName + BINDING_SUFFIX;
+		Map<String, ExecutableElement> methods = collectBindableMethods(type);
+
+		boundProxies.add(type.getQualifiedName().toString());
+		if (dbg) {
+			debugLog("Generating binding " + bindingName + " with " + methods.size() + " methods");
+		}
+
+		StringBuilder names = new StringBuilder();
+		StringBuilder types = new StringBuilder();
+		StringBuilder voids = new StringBuilder();
+		StringBuilder cases = new StringBuilder();
+		int id = 0;
+		for (Map.Entry<String, ExecutableElement> entry : methods.entrySet()) {
+			ExecutableElement method = entry.getValue();
+			List<? extends VariableElement> params = method.getParameters();
+			boolean isVoid = method.getReturnType().getKind() == TypeKind.VOID;
+
+			String sep = id == 0 ? "" : ", ";
+			names.append(sep).append('"').append(entry.getKey()).append('"');
+			voids.append(sep).append(isVoid);
+
+			types.append(id == 0 ? "" : ",\n").append(String.format("%12s{ ", ""));
+			StringBuilder call = new StringBuilder();
+			call.append("proxy.").append(entry.getKey()).append("(");
+			for (int i = 0; i < params.size(); i++) {
+				TypeMirror paramType = this.processingEnv.getTypeUtils().erasure(params.get(i).asType());
+				types.append(i == 0 ? "" : ", ").append(paramType).append(".class");
+				call.append(i == 0 ? "" : ", ").append(convertArgument(paramType, i));
+			}
+			types.append(" }");
+			call.append(")");
+
+			cases.append(String.format("%12scase %d:\n", "", id));
+			if (isVoid) {
+				cases.append(String.format("%16s%s;\n", "", call));
+				cases.append(String.format("%16sreturn null;\n", ""));
+			} else {
+				cases.append(String.format("%16sreturn %s;\n", "", call));
+			}
+			id++;
+		}
+
+		Writer writer = null;
+		try {
+			JavaFileObject jfo = this.processingEnv.getFiler().createSourceFile("src." + proxyPackage + "." + bindingName, type);
+			writer = jfo.openWriter();
+			writer.write(String.format("/* Generated on %s */\n",new Date()));
+			writer.write("/* by Titanium Appcelerator */\n");
+			writer.write(String.format("\npackage %s;\n",proxyPackage));
+			writer.write(String.format("\nimport org.appcelerator.titanium.kroll.KrollBinding;\n\n"));
+			writer.write(String.format("public class %s extends KrollBinding\n", bindingName));
+			writer.write("{\n");
+			writer.write(String.format("%4spublic %s()\n", "", bindingName));
+			writer.write(String.format("%4s{\n", ""));
+			writer.write(String.format("%8ssuper(new String[] { %s },\n", "", names));
+			writer.write(String.format("%12snew Class<?>[][] {\n%s\n%12s},\n", "", types, ""));
+			writer.write(String.format("%12snew boolean[] { %s });\n", "", voids));
+			writer.write(String.format("%4s}\n\n", ""));
+			writer.write(String.format("%4sprotected Object doInvoke(int id, Object target, Object[] args) throws Throwable\n", ""));
+			writer.write(String.format("%4s{\n", ""));
+			writer.write(String.format("%8s%s proxy = (%s) target;\n", "", proxyName, proxyName));
+			writer.write(String.format("%8sswitch (id) {\n", ""));
+			writer.write(cases.toString());
+			writer.write(String.format("%8s}\n", ""));
+			writer.write(String.format("%8sthrow new IllegalArgumentException(\"Unknown method id \" + id + \" for %s\");\n", "", proxyName));
+			writer.write(String.format("%4s}\n", ""));
+			writer.write("}\n");
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (null != writer) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Swallow
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param paramType {@link TypeMirror} the erased parameter type
+	 * @param index the argument index
+	 * @return the source expression that passes args[index] as paramType
+	 */
+	private String convertArgument(TypeMirror paramType, int index) {
+		String arg = "args[" + index + "]";
+		switch (paramType.getKind()) {
+			case BOOLEAN : return "((Boolean) " + arg + ").booleanValue()";
+			case BYTE : return "((Number) " + arg + ").byteValue()";
+			case SHORT : return "((Number) " + arg + ").shortValue()";
+			case INT : return "((Number) " + arg + ").intValue()";
+			case LONG : return "((Number) " + arg + ").longValue()";
+			case FLOAT : return "((Number) " + arg + ").floatValue()";
+			case DOUBLE : return "((Number) " + arg + ").doubleValue()";
+			case CHAR : return "((Character) " + arg + ").charValue()";
+			default : return "(" + paramType + ") " + arg;
+		}
+	}
+	
 	/**
 	 * Generates a method in the class that handles the nested version annotation
 	 * 
@@ -219,6 +219,16 @@ public class TiResourceFile extends TiBaseFile
 		return toURL();
 	}
 
+	@Override
+	public double modificationTimestamp()
+	{
+		if (loadFromSDCard) {
+			return new File(getSDCardPath(TiFileHelper2.joinSegments("Resources", path))).lastModified();
+		}
+		// Packaged assets can't change while the app is running
+		return 0;
+	}
+
 	@Override
 	public double spaceAvailable() {
 		return 0;
@@ -0,0 +1,151 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.appcelerator.titanium.util.Log;
+import org.appcelerator.titanium.util.TiConfig;
+
+/**
+ * Base class for the dispatch bindings generated by ModuleRefGenerator.
+ *
+ * A binding exposes the public methods of a single proxy class by index. The parameter
+ * types of every method are computed once at generation time so that argument conversion
+ * doesn't have to go back to reflection, and the generated doInvoke calls the method
+ * directly through a switch instead of Method.invoke.
+ */
+public abstract class KrollBinding
+{
+	private static final String LCAT = "KrollBinding";
+	private static final boolean DBG = TiConfig.LOGD;
+
+	public static final String BINDING_SUFFIX = "Binding";
+
+	private static final KrollBinding NO_BINDING = new KrollBinding(new String[0], new Class<?>[0][], new boolean[0]) {
+		@Override
+		protected Object doInvoke(int id, Object target, Object[] args) throws Throwable {
+			throw new IllegalArgumentException("No binding");
+		}
+	};
+
+	private static final ConcurrentHashMap<Class<?>, KrollBinding> bindings =
+		new ConcurrentHashMap<Class<?>, KrollBinding>();
+
+	private final String[] methodNames;
+	private final Class<?>[][] parameterTypes;
+	private final boolean[] voidMethods;
+	private final HashMap<String, Integer> methodIds;
+
+	protected KrollBinding(String[] methodNames, Class<?>[][] parameterTypes, boolean[] voidMethods)
+	{
+		this.methodNames = methodNames;
+		this.parameterTypes = parameterTypes;
+		this.voidMethods = voidMethods;
+		this.methodIds = new HashMap<String, Integer>(methodNames.length);
+		for (int i = 0; i < methodNames.length; i++) {
+			methodIds.put(methodNames[i], i);
+		}
+	}
+
+	/**
+	 * @return the generated binding for exactly this class or null if the class was
+	 * not processed, in which case callers fall back to reflection.
+	 */
+	public static KrollBinding forClass(Class<?> source)
+	{
+		KrollBinding binding = bindings.get(source);
+		if (binding == null) {
+			binding = NO_BINDING;
+			try {
+				Class<?> c = Class.forName(source.getName() + BINDING_SUFFIX, true, source.getClassLoader());
+				if (KrollBinding.class.isAssignableFrom(c)) {
+					binding = (KrollBinding) c.newInstance();
+				}
+			} catch (ClassNotFoundException e) {
+				// No generated binding, reflection it is.
+			} catch (Exception e) {
+				Log.w(LCAT, "Unable to load binding for " + source.getName() + ": " + e.getMessage());
+			}
+			if (DBG) {
+				Log.d(LCAT, (binding == NO_BINDING ? "No binding for " : "Using binding for ") + source.getName());
+			}
+			bindings.putIfAbsent(source, binding);
+		}
+
+		return binding == NO_BINDING ? null : binding;
+	}
+
+	public int getMethodId(String name)
+	{
+		Integer id = methodIds.get(name);
+		return id == null ? -1 : id;
+	}
+
+	public String getMethodName(int id) {
+		return methodNames[id];
+	}
+
+	public Class<?>[] getParameterTypes(int id) {
+		return parameterTypes[id];
+	}
+
+	public boolean isVoid(int id) {
+		return voidMethods[id];
+	}
+
+	/**
+	 * Like Method.invoke, throws IllegalArgumentException without calling the method when
+	 * an argument can't be passed as its parameter type.
+	 */
+	public Object invoke(int id, Object target, Object[] args)
+		throws InvocationTargetException
+	{
+		checkArguments(id, args);
+		try {
+			return doInvoke(id, target, args);
+		} catch (Throwable t) {
+			// Mirror Method.invoke so callers handle both paths the same way.
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	private void checkArguments(int id, Object[] args)
+	{
+		Class<?>[] types = parameterTypes[id];
+		if (args.length != types.length) {
+			throw new IllegalArgumentException("wrong number of arguments for " + methodNames[id]
+				+ ", expected " + types.length + " got " + args.length);
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (!isAssignable(types[i], args[i])) {
+				throw new IllegalArgumentException("argument type mismatch for " + methodNames[id]
+					+ " argument " + i + ", expected " + types[i].getName() + " got "
+					+ (args[i] == null ? "null" : args[i].getClass().getName()));
+			}
+		}
+	}
+
+	// Mirrors the conversions the generated doInvoke applies to each argument.
+	private static boolean isAssignable(Class<?> type, Object arg)
+	{
+		if (!type.isPrimitive()) {
+			return arg == null || type.isInstance(arg);
+		}
+		if (type == Boolean.TYPE) {
+			return arg instanceof Boolean;
+		}
+		if (type == Character.TYPE) {
+			return arg instanceof Character;
+		}
+		return arg instanceof Number;
+	}
+
+	protected abstract Object doInvoke(int id, Object target, Object[] args) throws Throwable;
+}
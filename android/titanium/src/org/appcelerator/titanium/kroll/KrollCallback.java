@@ -7,7 +7,9 @@
 package org.appcelerator.titanium.kroll;
 
 import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEventPolicy;
 import org.appcelerator.titanium.util.Log;
+import org.mozilla.javascript.BaseFunction;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.EcmaError;
 import org.mozilla.javascript.EvaluatorException;
@@ -43,36 +45,59 @@ public class KrollCallback implements IKrollCallable
 	public void call(Object[] args)
 	{
 		if (args == null) args = new Object[0];
-		final Object[] fArgs = args;
+		kroll.queueCallback(this, args);
+	}
+
+	public void callWithPolicy(TiDict data, TiEventPolicy policy)
+	{
+		if (data == null) {
+			data = new TiDict();
+		}
+		kroll.queueEvent(this, data, policy);
+	}
 
-		kroll.post(new Runnable(){
-			public void run() {
-				Context ctx = kroll.enter();
+	/**
+	 * Runs the callback, the caller must have entered the Rhino context on the kroll thread.
+	 */
+	protected void invoke(Context ctx, Object[] args)
+	{
+		boolean stats = KrollStats.enabled;
+		long start = stats ? System.nanoTime() : 0;
+		try {
+			Object[] jsArgs = new Object[args.length];
+			for (int i = 0; i < args.length; i++) {
+				Object jsArg = KrollObject.fromNative(args[i], kroll);
+				jsArgs[i] = jsArg;
+			}
+			long converted = stats ? System.nanoTime() : 0;
+			method.call(ctx, thisObj, thisObj, jsArgs);
+			if (stats) {
+				KrollStats.record(KrollCallback.class, getStatsName(), converted - start, System.nanoTime() - converted, 0);
+			}
+		} catch (EcmaError e) {
+			Log.e(LCAT, "ECMA Error evaluating source: " + e.getMessage(), e);
+			Context.reportRuntimeError(e.getMessage(), e.sourceName(), e.lineNumber(), e.lineSource(), e.columnNumber());
+		} catch (EvaluatorException e) {
+			Log.e(LCAT, "Error evaluating source: " + e.getMessage(), e);
+			Context.reportRuntimeError(e.getMessage(), e.sourceName(), e.lineNumber(), e.lineSource(), e.columnNumber());
+		} catch (Exception e) {
+			Log.e(LCAT, "Error: " + e.getMessage(), e);
+			Context.throwAsScriptRuntimeEx(e);
+		} catch (Throwable e) {
+			Log.e(LCAT, "Unhandled throwable: " + e.getMessage(), e);
+			Context.throwAsScriptRuntimeEx(e);
+		}
+	}
 
-				try {
-					Object[] jsArgs = new Object[fArgs.length];
-					for (int i = 0; i < fArgs.length; i++) {
-						Object jsArg = KrollObject.fromNative(fArgs[i], kroll);
-						jsArgs[i] = jsArg;
-					}
-					method.call(ctx, thisObj, thisObj, jsArgs);
-				} catch (EcmaError e) {
-					Log.e(LCAT, "ECMA Error evaluating source: " + e.getMessage(), e);
-					Context.reportRuntimeError(e.getMessage(), e.sourceName(), e.lineNumber(), e.lineSource(), e.columnNumber());
-				} catch (EvaluatorException e) {
-					Log.e(LCAT, "Error evaluating source: " + e.getMessage(), e);
-					Context.reportRuntimeError(e.getMessage(), e.sourceName(), e.lineNumber(), e.lineSource(), e.columnNumber());
-				} catch (Exception e) {
-					Log.e(LCAT, "Error: " + e.getMessage(), e);
-					Context.throwAsScriptRuntimeEx(e);
-				} catch (Throwable e) {
-					Log.e(LCAT, "Unhandled throwable: " + e.getMessage(), e);
-					Context.throwAsScriptRuntimeEx(e);
-				} finally {
-					kroll.exit();
-				}
+	private String getStatsName()
+	{
+		if (method instanceof BaseFunction) {
+			String name = ((BaseFunction) method).getFunctionName();
+			if (name != null && name.length() > 0) {
+				return name;
 			}
-		});
+		}
+		return "<anonymous>";
 	}
 
 	@Override
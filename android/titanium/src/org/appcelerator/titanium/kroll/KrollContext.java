@@ -10,12 +10,21 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.appcelerator.titanium.TiApplication;
 import org.appcelerator.titanium.TiContext;
+import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEvent;
+import org.appcelerator.titanium.TiEventPolicy;
 import org.appcelerator.titanium.io.TiBaseFile;
+import org.appcelerator.titanium.io.TiFile;
 import org.appcelerator.titanium.io.TiFileFactory;
+import org.appcelerator.titanium.io.TiResourceFile;
 import org.appcelerator.titanium.util.AsyncResult;
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
@@ -23,7 +32,9 @@ import org.appcelerator.titanium.util.TiFileHelper2;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.EcmaError;
 import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
 
 import android.app.Activity;
 import android.app.AlertDialog;
@@ -32,6 +43,7 @@ import android.content.DialogInterface.OnClickListener;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Message;
+import android.os.SystemClock;
 
 public class KrollContext extends HandlerThread implements Handler.Callback
 {
@@ -40,15 +52,63 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 
 	private static final int MSG_EVAL_STRING = 1000;
 	private static final int MSG_EVAL_FILE = 1001;
+	private static final int MSG_DRAIN_CALLBACKS = 1002;
+
+	private static final String CALLBACK_DRAIN_BUDGET = "ti.android.callbackDrainBudget";
+	private static final int DEFAULT_CALLBACK_DRAIN_BUDGET = 16; // ms, about a frame
+
+	// Must match the package compiler.py hands to jsc
+	private static final String COMPILED_PACKAGE = "org.appcelerator.generated";
+	private static final String LOAD_FROM_SD_CARD = "ti.android.loadfromsdcard";
+	// Opt in to one sealed set of standard objects for every context, scripts can then no
+	// longer add to builtin prototypes such as String.prototype
+	private static final String SHARED_SCOPE = "ti.android.sharedScope";
 
 	private static AtomicInteger instanceCounter;
+	private static ConcurrentHashMap<String, Class<?>> compiledScripts = new ConcurrentHashMap<String, Class<?>>();
+
+	private static final Object SHARED_SCOPE_LOCK = new Object();
+	private static ScriptableObject sharedScope;
+	private static long sharedScopeInitTime;
 
 	private TiContext tiContext;
 	private Scriptable jsScope;
 
 	private CountDownLatch initialized;
 	private Handler contextHandler;
+	private boolean usePrecompiled;
+	private boolean useSharedScope;
+	private long scopeInitTime;
 
+	private static class PendingCallback
+	{
+		private KrollCallback callback;
+		private Object[] args;
+		private TiEventPolicy policy;
+		private ArrayList<TiDict> batch;
+		// Runnables posted before this was queued, it must not run ahead of them
+		private long posted;
+
+		PendingCallback(KrollCallback callback, Object[] args) {
+			this.callback = callback;
+			this.args = args;
+		}
+	}
+
+	// Guarded by callbackQueue
+	private LinkedList<PendingCallback> callbackQueue;
+	private boolean drainScheduled;
+	// Runnables posted so far, and how many of them the scheduled drain message is behind
+	private long postCount;
+	private long drainPostCount;
+	private int maxCallbackQueueDepth;
+	private long callbackDrainBudget;
+
+	private long callbacksDrained;
+	private long eventsCoalesced;
+	private long drainCount;
+	private long totalDrainTime;
+	private long maxDrainTime;
 
 	protected KrollContext(TiContext tiContext)
 	{
@@ -56,6 +116,16 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 
 		this.tiContext = tiContext;
 		this.initialized = new CountDownLatch(1);
+
+		// Precompiled classes are only rebuilt for production packages, in development
+		// the sources (possibly pushed to the sdcard) are newer than what's in the dex.
+		TiApplication app = tiContext.getTiApp();
+		this.usePrecompiled = TiApplication.DEPLOY_TYPE_PRODUCTION.equals(app.getDeployType()) &&
+			!app.getSystemProperties().getBool(LOAD_FROM_SD_CARD, false);
+		this.useSharedScope = app.getSystemProperties().getBool(SHARED_SCOPE, false);
+
+		this.callbackQueue = new LinkedList<PendingCallback>();
+		this.callbackDrainBudget = app.getSystemProperties().getInt(CALLBACK_DRAIN_BUDGET, DEFAULT_CALLBACK_DRAIN_BUDGET);
 	}
 
 	@Override
@@ -74,9 +144,20 @@ public class KrollContext extends HandlerThread implements Handler.Callback
         	if (DBG) {
         		Log.i(LCAT, "Preparing scope");
         	}
-            this.jsScope = ctx.initStandardObjects();
+            long start = SystemClock.uptimeMillis();
+            long heapBefore = DBG ? usedHeap() : 0;
+            if (useSharedScope) {
+            	// Globals defined by scripts land in this scope, builtins are found on the prototype.
+            	this.jsScope = ctx.newObject(getSharedScope(ctx));
+            	jsScope.setPrototype(sharedScope);
+            	jsScope.setParentScope(null);
+            } else {
+            	this.jsScope = ctx.initStandardObjects();
+            }
+            scopeInitTime = SystemClock.uptimeMillis() - start;
             if (DBG) {
-            	Log.i(LCAT, "Scope prepared");
+            	Log.i(LCAT, "Scope prepared in " + scopeInitTime + "ms, heap delta: " + (usedHeap() - heapBefore) +
+            		" bytes, shared: " + useSharedScope);
             }
             initialized.countDown();
          } finally {
@@ -101,12 +182,232 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 				result.setResult(handleEvalFile(filename));
 				return true;
 			}
+			case MSG_DRAIN_CALLBACKS : {
+				drainCallbacks();
+				return true;
+			}
 		}
 		return false;
 	}
 
-	public void post(Runnable r) {
-		contextHandler.post(r);
+	public void post(Runnable r)
+	{
+		synchronized (callbackQueue) {
+			postCount++;
+			contextHandler.post(r);
+		}
+	}
+
+	/**
+	 * Queues a callback invocation. Pending callbacks are run in batches inside a single
+	 * Rhino context entry instead of one message per invocation, never ahead of a runnable
+	 * given to {@link #post} before they were queued.
+	 */
+	public void queueCallback(KrollCallback callback, Object[] args)
+	{
+		for (Object arg : args) {
+			// Pooled events stay valid until the callback has run
+			TiEvent.retain(arg);
+		}
+		synchronized (callbackQueue) {
+			enqueue(new PendingCallback(callback, args));
+		}
+	}
+
+	/**
+	 * Queues an event for a listener with a delivery policy. If an earlier event for the
+	 * same listener is still waiting it is replaced or, for batch delivery, extended
+	 * instead of queueing another invocation.
+	 */
+	public void queueEvent(KrollCallback callback, TiDict data, TiEventPolicy policy)
+	{
+		TiEvent.retain(data);
+		synchronized (callbackQueue) {
+			PendingCallback pending = (PendingCallback) policy.getPending();
+			if (pending != null) {
+				if (pending.batch != null) {
+					pending.batch.add(data);
+				} else {
+					TiEvent.recycle(pending.args[0]);
+					pending.args[0] = data;
+				}
+				eventsCoalesced++;
+				return;
+			}
+
+			pending = new PendingCallback(callback, new Object[] { data });
+			pending.policy = policy;
+			if (policy.getMode() == TiEventPolicy.MODE_BATCH) {
+				pending.batch = new ArrayList<TiDict>();
+				pending.batch.add(data);
+			}
+			policy.setPending(pending);
+			enqueue(pending);
+		}
+	}
+
+	// Caller holds the callbackQueue lock
+	private void enqueue(PendingCallback pending)
+	{
+		pending.posted = postCount;
+		callbackQueue.add(pending);
+		if (callbackQueue.size() > maxCallbackQueueDepth) {
+			maxCallbackQueueDepth = callbackQueue.size();
+		}
+		if (!drainScheduled) {
+			drainScheduled = true;
+			sendDrain();
+		}
+	}
+
+	// Caller holds the callbackQueue lock
+	private void sendDrain()
+	{
+		drainPostCount = postCount;
+		contextHandler.sendEmptyMessage(MSG_DRAIN_CALLBACKS);
+	}
+
+	private Object[] batchArgs(ArrayList<TiDict> batch)
+	{
+		TiDict first = batch.get(0);
+		TiDict data = new TiDict();
+		data.put("type", first.get("type"));
+		data.put("source", first.get("source"));
+		// Script may keep the events past the callback, pooled ones are recycled right after
+		Object[] events = new Object[batch.size()];
+		for (int i = 0; i < events.length; i++) {
+			TiDict event = batch.get(i);
+			events[i] = event instanceof TiEvent ? ((TiEvent) event).copy() : event;
+		}
+		data.put("events", events);
+		return new Object[] { data };
+	}
+
+	// Script has its own copies of pooled events once the callback has run
+	private void release(PendingCallback pending)
+	{
+		if (pending.batch != null) {
+			for (TiDict data : pending.batch) {
+				TiEvent.recycle(data);
+			}
+		} else {
+			for (Object arg : pending.args) {
+				TiEvent.recycle(arg);
+			}
+		}
+	}
+
+	protected void drainCallbacks()
+	{
+		long start = SystemClock.uptimeMillis();
+		long deadline = start + callbackDrainBudget;
+		int drained = 0;
+
+		Context ctx = enter();
+		try {
+			while (true) {
+				PendingCallback pending = null;
+				synchronized (callbackQueue) {
+					pending = callbackQueue.peek();
+					if (pending == null) {
+						drainScheduled = false;
+						break;
+					}
+					if (pending.posted > drainPostCount) {
+						// Queued after a runnable that is behind this drain, run it after that one
+						sendDrain();
+						break;
+					}
+					callbackQueue.poll();
+					if (pending.policy != null) {
+						// Events fired from now on start a new delivery
+						pending.policy.setPending(null);
+					}
+				}
+				drained++;
+				Object[] args = pending.batch != null ? batchArgs(pending.batch) : pending.args;
+				try {
+					pending.callback.invoke(ctx, args);
+				} finally {
+					release(pending);
+				}
+
+				if (SystemClock.uptimeMillis() >= deadline) {
+					// Out of budget, let other messages on this thread run before continuing.
+					// Runnables posted since the drain started run ahead of the rest.
+					break;
+				}
+			}
+		} finally {
+			exit();
+
+			synchronized (callbackQueue) {
+				if (drainScheduled && !contextHandler.hasMessages(MSG_DRAIN_CALLBACKS)) {
+					if (callbackQueue.isEmpty()) {
+						drainScheduled = false;
+					} else {
+						sendDrain();
+					}
+				}
+
+				long elapsed = SystemClock.uptimeMillis() - start;
+				callbacksDrained += drained;
+				drainCount++;
+				totalDrainTime += elapsed;
+				if (elapsed > maxDrainTime) {
+					maxDrainTime = elapsed;
+				}
+			}
+			if (DBG) {
+				Log.d(LCAT, "Drained " + drained + " callbacks in " + (SystemClock.uptimeMillis() - start) + "ms");
+			}
+		}
+	}
+
+	public void setCallbackDrainBudget(long budget) {
+		this.callbackDrainBudget = budget;
+	}
+
+	public int getCallbackQueueDepth() {
+		synchronized (callbackQueue) {
+			return callbackQueue.size();
+		}
+	}
+
+	public int getMaxCallbackQueueDepth() {
+		synchronized (callbackQueue) {
+			return maxCallbackQueueDepth;
+		}
+	}
+
+	public long getCallbacksDrained() {
+		synchronized (callbackQueue) {
+			return callbacksDrained;
+		}
+	}
+
+	/**
+	 * @return events merged into an already queued delivery by their listener's policy
+	 */
+	public long getEventsCoalesced() {
+		synchronized (callbackQueue) {
+			return eventsCoalesced;
+		}
+	}
+
+	/**
+	 * @return the average time in ms spent per drain of the callback queue.
+	 */
+	public double getAverageDrainTime() {
+		synchronized (callbackQueue) {
+			return drainCount == 0 ? 0 : (double) totalDrainTime / drainCount;
+		}
+	}
+
+	public long getMaxDrainTime() {
+		synchronized (callbackQueue) {
+			return maxDrainTime;
+		}
 	}
 
 	protected boolean isOurThread() {
@@ -120,6 +421,39 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 		return tiContext;
 	}
 
+	/**
+	 * The standard objects are the same for every context, so they are built once, sealed so
+	 * that no context can change them for the others, and used as the prototype of each
+	 * context's top level scope.
+	 */
+	private static ScriptableObject getSharedScope(Context ctx)
+	{
+		synchronized (SHARED_SCOPE_LOCK) {
+			if (sharedScope == null) {
+				long start = SystemClock.uptimeMillis();
+				sharedScope = ctx.initStandardObjects(null, true);
+				sharedScopeInitTime = SystemClock.uptimeMillis() - start;
+				if (DBG) {
+					Log.i(LCAT, "Shared scope prepared in " + sharedScopeInitTime + "ms");
+				}
+			}
+			return sharedScope;
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	public long getScopeInitTime() {
+		return scopeInitTime;
+	}
+
+	public static long getSharedScopeInitTime() {
+		return sharedScopeInitTime;
+	}
+
 	public Scriptable getScope() {
 		requireInitialized();
 		return jsScope;
@@ -153,10 +487,28 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 		Context ctx = enter();
 		try {
 			Log.d(LCAT,"eval file: "+filename);
-			String[] parts = { filename };
-			TiBaseFile tbf = TiFileFactory.createTitaniumFile(tiContext, parts, false);
-			br = new BufferedReader(new InputStreamReader(tbf.getInputStream()),4000);
-			result = ctx.evaluateReader(jsScope, br, filename, 0, null);
+			Script script = loadCompiledScript(filename);
+			if (script != null) {
+				result = script.exec(ctx, jsScope);
+			} else {
+				String[] parts = { filename };
+				TiBaseFile tbf = TiFileFactory.createTitaniumFile(tiContext, parts, false);
+				if (tbf instanceof TiResourceFile || tbf instanceof TiFile) {
+					String path = tbf.nativePath();
+					double stamp = tbf.modificationTimestamp();
+					script = KrollScriptCache.get(path, stamp);
+					if (script == null) {
+						br = new BufferedReader(new InputStreamReader(tbf.getInputStream()),4000);
+						String source = readSource(br);
+						script = ctx.compileString(source, filename, 0, null);
+						KrollScriptCache.put(path, stamp, script, source.length());
+					}
+					result = script.exec(ctx, jsScope);
+				} else {
+					br = new BufferedReader(new InputStreamReader(tbf.getInputStream()),4000);
+					result = ctx.evaluateReader(jsScope, br, filename, 0, null);
+				}
+			}
 		} catch (EcmaError e) {
 			Log.e(LCAT, "ECMA Error evaluating source: " + e.getMessage(), e);
 			Context.reportRuntimeError(e.getMessage(), e.sourceName(), e.lineNumber(), e.lineSource(), e.columnNumber());
@@ -180,6 +532,97 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 		return result;
 	}
 
+	private String readSource(BufferedReader br)
+		throws IOException
+	{
+		StringBuilder sb = new StringBuilder(4000);
+		char[] buf = new char[4000];
+		int read = 0;
+		while ((read = br.read(buf)) != -1) {
+			sb.append(buf, 0, read);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Looks for the class jsc generated at build time for a file under Resources.
+	 * @return a new instance of the compiled script or null to evaluate the source.
+	 */
+	protected Script loadCompiledScript(String filename)
+	{
+		if (!usePrecompiled) {
+			return null;
+		}
+
+		String className = compiledClassName(filename);
+		if (className == null) {
+			return null;
+		}
+
+		Class<?> c = compiledScripts.get(className);
+		if (c == null) {
+			try {
+				c = Class.forName(className);
+				if (!Script.class.isAssignableFrom(c)) {
+					c = Void.class;
+				}
+			} catch (ClassNotFoundException e) {
+				// Not compiled, remember that so we don't look again.
+				c = Void.class;
+			}
+			compiledScripts.put(className, c);
+		}
+
+		if (c == Void.class) {
+			return null;
+		}
+
+		try {
+			if (DBG) {
+				Log.d(LCAT, "Using precompiled " + className + " for " + filename);
+			}
+			return (Script) c.newInstance();
+		} catch (Exception e) {
+			Log.w(LCAT, "Unable to create precompiled script " + className + ", falling back to source: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Maps a Resources file to the class name produced by compiler.py / jsc, i.e.
+	 * app://ui/my-win.js is compiled to org.appcelerator.generated.ui.my_win
+	 */
+	protected static String compiledClassName(String filename)
+	{
+		String path = null;
+		if (filename.startsWith("app://")) {
+			path = filename.substring(6);
+		} else if (filename.startsWith("file:///android_asset/Resources/")) {
+			path = filename.substring(32);
+		}
+		if (path == null || !path.endsWith(".js")) {
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder(COMPILED_PACKAGE);
+		String[] segments = path.substring(0, path.length() - 3).split("/");
+		for (String segment : segments) {
+			if (segment.length() == 0 || segment.equals(".")) {
+				continue;
+			}
+			sb.append('.');
+			if (!Character.isJavaIdentifierStart(segment.charAt(0))) {
+				sb.append('_');
+			}
+			for (int i = 0; i < segment.length(); i++) {
+				char c = segment.charAt(i);
+				sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+			}
+		}
+
+		return sb.toString();
+	}
+
 	public Object eval(String src)
 	{
 		if (isOurThread()) {
@@ -238,7 +681,8 @@ public class KrollContext extends HandlerThread implements Handler.Callback
 
 	public Context enter() {
 		Context ctx = Context.enter();
-        // FOR NOW (UNTIL WE CAN COMPILE IN PACKAGING) WE HAVE TO TURN OFF OPTIMIZATIONS
+		// Dalvik can't load classes generated at runtime, so anything evaluated from source
+		// is interpreted. Files compiled at packaging time are picked up by loadCompiledScript.
 		ctx.setOptimizationLevel(-1);
 		ctx.setErrorReporter(getTiContext());
 		return ctx;
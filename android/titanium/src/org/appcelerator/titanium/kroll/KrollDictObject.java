@@ -0,0 +1,221 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+
+/**
+ * A JS object backed by a native dictionary. Instead of converting the whole map
+ * when it crosses the bridge, values are converted the first time script reads them
+ * and the converted value is cached in the object's own slots. Writes and deletes
+ * from script only touch the JS side, the native map is never modified.
+ *
+ * The entries, and the maps and arrays nested in them, are copied when the object is
+ * created, which is when the dictionary is converted on the Kroll thread. Native code
+ * changing the dictionary after that isn't seen by script, but it must not change it
+ * while the copy is taken.
+ */
+public class KrollDictObject extends ScriptableObject
+{
+	private static final long serialVersionUID = 1L;
+
+	private KrollContext kroll;
+	private Map<String, Object> dict;
+	private HashSet<String> deleted;
+
+	public KrollDictObject(KrollContext kroll, Map<String, Object> dict)
+	{
+		this(kroll, snapshot(dict), true);
+	}
+
+	/**
+	 * @param owned true if nothing else holds a reference to dict or anything nested in it,
+	 * it is then used as is.
+	 */
+	private KrollDictObject(KrollContext kroll, Map<String, Object> dict, boolean owned)
+	{
+		super(kroll.getScope(), ScriptableObject.getObjectPrototype(kroll.getScope()));
+		this.kroll = kroll;
+		this.dict = owned ? dict : snapshot(dict);
+	}
+
+	private static LinkedHashMap<String, Object> snapshot(Map<String, Object> map)
+	{
+		LinkedHashMap<String, Object> copy = new LinkedHashMap<String, Object>(map.size() * 4 / 3 + 1);
+		for (Map.Entry<String, Object> e : map.entrySet()) {
+			copy.put(e.getKey(), snapshotValue(e.getValue()));
+		}
+		return copy;
+	}
+
+	// Maps and arrays are copied all the way down. Anything else is immutable or, like
+	// proxies, held by reference in script anyway.
+	@SuppressWarnings("unchecked")
+	private static Object snapshotValue(Object value)
+	{
+		if (value instanceof Map) {
+			return snapshot((Map<String, Object>) value);
+		} else if (value instanceof Object[]) {
+			Object[] values = (Object[]) value;
+			Object[] copy = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				copy[i] = snapshotValue(values[i]);
+			}
+			return copy;
+		} else if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, copy, 0, length);
+			return copy;
+		}
+		return value;
+	}
+
+	// Nested maps were copied with this one and aren't copied again
+	@SuppressWarnings("unchecked")
+	private Object convert(Object value)
+	{
+		if (value instanceof Map) {
+			return new KrollDictObject(kroll, (Map<String, Object>) value, true);
+		}
+		return KrollObject.fromNative(value, kroll);
+	}
+
+	@Override
+	public String getClassName() {
+		return "Object";
+	}
+
+	private boolean hasNative(String name) {
+		return dict.containsKey(name) && (deleted == null || !deleted.contains(name));
+	}
+
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return super.has(name, start) || hasNative(name);
+	}
+
+	@Override
+	public boolean has(int index, Scriptable start) {
+		return super.has(index, start) || hasNative(String.valueOf(index));
+	}
+
+	@Override
+	public Object get(String name, Scriptable start)
+	{
+		if (super.has(name, start)) {
+			return super.get(name, start);
+		}
+		if (hasNative(name)) {
+			Object value = convert(dict.get(name));
+			super.put(name, this, value);
+			return value;
+		}
+		return NOT_FOUND;
+	}
+
+	@Override
+	public Object get(int index, Scriptable start)
+	{
+		if (super.has(index, start)) {
+			return super.get(index, start);
+		}
+		String name = String.valueOf(index);
+		if (hasNative(name)) {
+			Object value = convert(dict.get(name));
+			super.put(index, this, value);
+			return value;
+		}
+		return NOT_FOUND;
+	}
+
+	@Override
+	public void delete(String name)
+	{
+		super.delete(name);
+		markDeleted(name);
+	}
+
+	@Override
+	public void delete(int index)
+	{
+		super.delete(index);
+		markDeleted(String.valueOf(index));
+	}
+
+	private void markDeleted(String name)
+	{
+		if (dict.containsKey(name)) {
+			if (deleted == null) {
+				deleted = new HashSet<String>();
+			}
+			deleted.add(name);
+		}
+	}
+
+	@Override
+	public Object[] getIds() {
+		return mergeIds(super.getIds());
+	}
+
+	@Override
+	public Object[] getAllIds() {
+		return mergeIds(super.getAllIds());
+	}
+
+	// Native keys first (in map order), then anything script added.
+	private Object[] mergeIds(Object[] ownIds)
+	{
+		ArrayList<Object> ids = new ArrayList<Object>(dict.size() + ownIds.length);
+		HashSet<String> seen = new HashSet<String>();
+		for (String key : dict.keySet()) {
+			if (hasNative(key)) {
+				ids.add(key);
+				seen.add(key);
+			}
+		}
+		for (Object id : ownIds) {
+			if (!seen.contains(id.toString())) {
+				ids.add(id);
+			}
+		}
+		return ids.toArray();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("{ ");
+
+		String sep = "";
+		for (Object id : getIds()) {
+			sb.append(sep);
+			sb.append(" '").append(id).append("' : ");
+			Object o = get(id.toString(), this);
+			if (o == null) {
+				sb.append("null");
+			} else if (o instanceof String) {
+				sb.append(" '").append((String)o).append("' ");
+			} else {
+				sb.append(o);
+			}
+			sep = ",";
+		}
+
+		sb.append(" }");
+
+		return sb.toString();
+	}
+}
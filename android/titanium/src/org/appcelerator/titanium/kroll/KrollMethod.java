@@ -35,6 +35,8 @@ public class KrollMethod extends KrollObject implements Function
 	protected Method method;
 	protected KrollMethodType type;
 	protected String methodName;
+	protected KrollBinding binding;
+	protected int bindingId;
 
 	public KrollMethod(KrollObject parent, Object target, Method method, KrollMethodType type) {
 		this(parent, target, method, type, null);
@@ -45,6 +47,15 @@ public class KrollMethod extends KrollObject implements Function
 		this.method = method;
 		this.type = type;
 		this.methodName = methodName;
+		this.bindingId = -1;
+	}
+
+	public KrollMethod(KrollObject parent, Object target, KrollBinding binding, int bindingId, KrollMethodType type, String methodName) {
+		super(parent, target);
+		this.binding = binding;
+		this.bindingId = bindingId;
+		this.type = type;
+		this.methodName = methodName;
 	}
 
 	@Override
@@ -73,22 +84,56 @@ public class KrollMethod extends KrollObject implements Function
 			newArgs = null;
 		}
 
+		boolean stats = KrollStats.enabled;
+		long start = stats ? System.nanoTime() : 0;
+		long converted = 0;
+		long invoked = 0;
+
 		try {
-			if (method != null) {
+			if (binding != null) {
+				newArgs = argsForTypes(binding.getParameterTypes(bindingId), args, getKrollContext().getTiContext());
+				if (stats) {
+					converted = System.nanoTime();
+				}
+
+				if (binding.isVoid(bindingId)) {
+					binding.invoke(bindingId, target, newArgs);
+					if (stats) {
+						invoked = System.nanoTime();
+					}
+					result = getParentScope();
+				} else {
+					Object value = binding.invoke(bindingId, target, newArgs);
+					if (stats) {
+						invoked = System.nanoTime();
+					}
+					result = KrollObject.fromNative(value, getKrollContext());
+				}
+			} else if (method != null) {
 				newArgs = argsForMethod(method, args, getKrollContext().getTiContext());
+				if (stats) {
+					converted = System.nanoTime();
+				}
 
 				if (method.getReturnType() == java.lang.Void.TYPE) {
 					method.invoke(target, newArgs);
+					if (stats) {
+						invoked = System.nanoTime();
+					}
 					result = getParentScope();
 				} else {
-					result = KrollObject.fromNative(method.invoke(target, newArgs), getKrollContext());
+					Object value = method.invoke(target, newArgs);
+					if (stats) {
+						invoked = System.nanoTime();
+					}
+					result = KrollObject.fromNative(value, getKrollContext());
 				}
 			} else {
 				result = KrollObject.fromNative(target, getKrollContext());
 			}
 		} catch (InvocationTargetException e) {
 			if (DBG) {
-				Log.e(LCAT, "Exception thrown invoking method " + method.getName(), e);
+				Log.e(LCAT, "Exception thrown invoking method " + getInvokedName(), e);
 				for (int i = 0; i < newArgs.length; i++) {
 					Log.e(LCAT, "Arg: " + i + " Type: " + (newArgs[i] != null ? newArgs[i].getClass().getName() : "null"));
 				}
@@ -98,8 +143,9 @@ public class KrollMethod extends KrollObject implements Function
 			Context.throwAsScriptRuntimeEx(e);
 		} catch (IllegalArgumentException e) {
 			if (DBG) {
-				Log.e(LCAT, e.getMessage() + " for " + method.getName());
-				for(Class<?> t : method.getParameterTypes()) {
+				Log.e(LCAT, e.getMessage() + " for " + getInvokedName());
+				Class<?>[] types = binding != null ? binding.getParameterTypes(bindingId) : method.getParameterTypes();
+				for(Class<?> t : types) {
 					Log.e(LCAT, "Expected Type: " + t.getSimpleName());
 				}
 				for(Object o : newArgs) {
@@ -108,6 +154,9 @@ public class KrollMethod extends KrollObject implements Function
 			}
 			Context.throwAsScriptRuntimeEx(e);
 		}
+		if (stats && invoked != 0) {
+			KrollStats.record(target.getClass(), getStatsName(), converted - start, invoked - converted, System.nanoTime() - invoked);
+		}
 		if (DBG) {
 			Log.d(LCAT, "RESULT: " + ((result == null) ? "<null>" : result.toString()));
 			Log.d(LCAT, "RESULT TYPE: " + ((result == null) ? "<null>" : result.getClass().getName()));
@@ -115,6 +164,18 @@ public class KrollMethod extends KrollObject implements Function
 		return result;
 	}
 
+	private String getInvokedName() {
+		return binding != null ? binding.getMethodName(bindingId) : method.getName();
+	}
+
+	private String getStatsName() {
+		if (type == KrollMethodType.KrollMethodDynamic) {
+			// getDynamicValue/setDynamicValue are shared by every property
+			return getInvokedName() + ":" + methodName;
+		}
+		return getInvokedName();
+	}
+
 	public Scriptable construct(Context cx, Scriptable scope, Object[] args) {
 		return null;
 	}
@@ -122,6 +183,9 @@ public class KrollMethod extends KrollObject implements Function
 	@Override
 	public boolean equals(Object obj) {
 		KrollMethod km = (KrollMethod) obj;
+		if (binding != null) {
+			return binding == km.binding && bindingId == km.bindingId;
+		}
 		return method.equals(km.method);
 	}
 }
@@ -0,0 +1,14 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import org.appcelerator.titanium.TiContext;
+
+public interface KrollModuleFactory
+{
+	public Object createModule(TiContext context);
+}
@@ -0,0 +1,115 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.appcelerator.titanium.TiContext;
+import org.appcelerator.titanium.util.Log;
+
+/**
+ * Maps module class names to the factories that create them.
+ *
+ * Factories generated by ModuleRefGenerator (named &lt;Module&gt;Factory) are used when
+ * present, otherwise a factory wrapping the module's single constructor is built once.
+ * Names that don't resolve to a module are remembered so that repeated lookups of
+ * capitalized properties don't go back to Class.forName.
+ */
+public class KrollModuleRegistry
+{
+	private static final String LCAT = "KrollModuleRegistry";
+
+	public static final String FACTORY_SUFFIX = "Factory";
+
+	private static final KrollModuleFactory NO_MODULE = new KrollModuleFactory() {
+		public Object createModule(TiContext context) {
+			return null;
+		}
+	};
+
+	private static final ConcurrentHashMap<String, KrollModuleFactory> factories =
+		new ConcurrentHashMap<String, KrollModuleFactory>();
+
+	private static class ConstructorFactory implements KrollModuleFactory
+	{
+		private Constructor<?> ctor;
+		private boolean needsContext;
+
+		ConstructorFactory(Constructor<?> ctor) {
+			this.ctor = ctor;
+			this.needsContext = ctor.getParameterTypes().length == 1;
+		}
+
+		public Object createModule(TiContext context)
+		{
+			try {
+				if (needsContext) {
+					return ctor.newInstance(context);
+				}
+				return ctor.newInstance();
+			} catch (Exception e) {
+				Log.e(LCAT, "Error creating module " + ctor.getDeclaringClass().getName() + ": " + e.getMessage(), e);
+			}
+			return null;
+		}
+	}
+
+	public static void register(String className, KrollModuleFactory factory) {
+		factories.put(className, factory);
+	}
+
+	/**
+	 * @return the factory for the module class or null if there is no such module.
+	 */
+	public static KrollModuleFactory lookup(String className)
+	{
+		KrollModuleFactory factory = factories.get(className);
+		if (factory == null) {
+			factory = resolve(className);
+			KrollModuleFactory existing = factories.putIfAbsent(className, factory);
+			if (existing != null) {
+				factory = existing;
+			}
+		}
+
+		return factory == NO_MODULE ? null : factory;
+	}
+
+	private static KrollModuleFactory resolve(String className)
+	{
+		try {
+			Class<?> f = Class.forName(className + FACTORY_SUFFIX);
+			if (KrollModuleFactory.class.isAssignableFrom(f)) {
+				return (KrollModuleFactory) f.newInstance();
+			}
+		} catch (ClassNotFoundException e) {
+			// No generated factory
+		} catch (Exception e) {
+			Log.w(LCAT, "Unable to create factory for " + className + ": " + e.getMessage());
+		}
+
+		try {
+			Class<?> c = Class.forName(className);
+			Constructor<?>[] ctors = c.getConstructors();
+			if (ctors.length == 1) {
+				Constructor<?> ctor = ctors[0];
+				Class<?>[] types = ctor.getParameterTypes();
+				if (types.length <= 1) {
+					return new ConstructorFactory(ctor);
+				}
+				Log.e(LCAT, "No valid constructor found.");
+			} else {
+				Log.w(LCAT, "Modules currently requires only one contructor in a module.");
+			}
+		} catch (ClassNotFoundException e) {
+			Log.w(LCAT, "No module for " + className);
+		}
+
+		return NO_MODULE;
+	}
+}
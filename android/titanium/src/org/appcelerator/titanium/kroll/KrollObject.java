@@ -8,7 +8,6 @@ package org.appcelerator.titanium.kroll;
 
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Date;
@@ -44,6 +43,8 @@ public class KrollObject extends ScriptableObject
 	protected WeakReference<KrollContext> weakKrollContext;
 	protected WeakReference<TiApplication> weakApplication;
 	protected Object target;
+	private KrollBinding targetBinding;
+	private boolean targetBindingResolved;
 
 	public KrollObject(KrollContext kroll) {
 		this(kroll, null);
@@ -132,7 +133,7 @@ public class KrollObject extends ScriptableObject
 		Object o = NOT_FOUND;
 
 		// If starts with Capital letter see if there is a module for it.
-		if (name.matches("^[A-Z].*") || name.matches("iPhone")) {
+		if (isModuleName(name)) {
 			Object p = loadModule(name);
 			if (p != null) {
 				o = new KrollObject(this, p);
@@ -143,7 +144,13 @@ public class KrollObject extends ScriptableObject
 			if (DBG) {
 				Log.d(LCAT, "Start: " + start.getClassName() + " looking for method:" + name);
 			}
-			o = handleMethodOrProperty(name, start, true, null);
+			if (KrollStats.enabled) {
+				long begin = System.nanoTime();
+				o = handleMethodOrProperty(name, start, true, null);
+				KrollStats.record(target.getClass(), "get:" + name, 0, System.nanoTime() - begin, 0);
+			} else {
+				o = handleMethodOrProperty(name, start, true, null);
+			}
 		}
 
 		return o;
@@ -220,23 +227,23 @@ public class KrollObject extends ScriptableObject
 
 				Method propertyMethod = (Method) loadMethod(target.getClass(), pname);
 				if (propertyMethod != null) {
-					km = new KrollMethod(this, target, propertyMethod, KrollMethodType.KrollMethodGetter);
+					km = createKrollMethod(propertyMethod, KrollMethodType.KrollMethodGetter, null);
 					put(pname, this, km);
 					retrieveValue = false;
 					o = km;
 				} else {
-					km  = new KrollMethod(this, target, getMethod, KrollMethodType.KrollMethodPropertyGetter);
+					km  = createKrollMethod(getMethod, KrollMethodType.KrollMethodPropertyGetter, null);
 					setGetterOrSetter(pname, 0, km, false);
 				}
 
 				// add get method
-				km = new KrollMethod(this, target, getMethod, KrollMethodType.KrollMethodGetter);
+				km = createKrollMethod(getMethod, KrollMethodType.KrollMethodGetter, null);
 				put(buildMethodName("get", pname), this, km);
 
 				if(retrieveValue && pname.equals(name)) {
 					try {
 						// get value from native
-						o = KrollObject.fromNative(getMethod.invoke(target, new Object[0]), getKrollContext());
+						o = KrollObject.fromNative(invokeMethod(getMethod, new Object[0]), getKrollContext());
 						getRetrieved = true;
 					} catch (InvocationTargetException e) {
 						Log.e(LCAT, "Error getting property: " + e.getMessage(), e);
@@ -254,11 +261,11 @@ public class KrollObject extends ScriptableObject
 
 			if (setMethod != null) {
 				// add setter
-				KrollMethod km  = new KrollMethod(this, target, setMethod, KrollMethodType.KrollMethodPropertySetter);
+				KrollMethod km  = createKrollMethod(setMethod, KrollMethodType.KrollMethodPropertySetter, null);
 				setGetterOrSetter(pname, 0, km, true);
 
 				// add set method
-				km = new KrollMethod(this, target, setMethod, KrollMethodType.KrollMethodSetter);
+				km = createKrollMethod(setMethod, KrollMethodType.KrollMethodSetter, null);
 				put(buildMethodName("set", pname), this, km);
 				if (!getRetrieved) {
 					if (name.startsWith("set")) {
@@ -271,7 +278,7 @@ public class KrollObject extends ScriptableObject
 					args[0] = value;
 
 					try {
-						setMethod.invoke(target, argsForMethod(setMethod, args, getKrollContext().getTiContext()));
+						invokeMethod(setMethod, args);
 					} catch (InvocationTargetException e) {
 						Log.e(LCAT, "Error setting property: " + e.getMessage(), e);
 						Context.throwAsScriptRuntimeEx(e);
@@ -285,13 +292,13 @@ public class KrollObject extends ScriptableObject
 			// See if the method exists
 			Method m = (Method) loadMethod(target.getClass(), name);
 			if (m != null) {
-				o = new KrollMethod(this, target, m, KrollMethodType.KrollMethodInvoke);
+				o = createKrollMethod(m, KrollMethodType.KrollMethodInvoke, null);
 				put(name, this, o);
 			} else if (name.startsWith("create")) {
 				// Check for dynamic proxy.
 				m = (Method) loadMethod(target.getClass(), "createProxy");
 				if (m != null) {
-					o = new KrollMethod(this, target, m, KrollMethodType.KrollMethodFactory, name);
+					o = createKrollMethod(m, KrollMethodType.KrollMethodFactory, name);
 					put(name, this, o);
 				}
 			} else {
@@ -320,7 +327,7 @@ public class KrollObject extends ScriptableObject
 			Log.d(LCAT, "Treating as dynamic property: " + name);
 		}
 		// add getter
-		KrollMethod getterKm  = new KrollMethod(this, target, getMethod, KrollMethodType.KrollMethodDynamic, pname);
+		KrollMethod getterKm  = createKrollMethod(getMethod, KrollMethodType.KrollMethodDynamic, pname);
 		setGetterOrSetter(pname, 0, getterKm, false);
 		put(buildMethodName("get", pname), this, getterKm);
 
@@ -330,7 +337,7 @@ public class KrollObject extends ScriptableObject
 				Object[] args = new Object[1];
 				args[0] = name;
 
-				o = KrollObject.fromNative(getMethod.invoke(target, args), getKrollContext());
+				o = KrollObject.fromNative(invokeMethod(getMethod, args), getKrollContext());
 			} catch (InvocationTargetException e) {
 				Log.e(LCAT, "Error getting property: " + e.getMessage(), e);
 				Context.throwAsScriptRuntimeEx(e);
@@ -341,7 +348,7 @@ public class KrollObject extends ScriptableObject
 		}
 
 		// add setter
-		KrollMethod setterKm  = new KrollMethod(this, target, setMethod, KrollMethodType.KrollMethodDynamic, pname);
+		KrollMethod setterKm  = createKrollMethod(setMethod, KrollMethodType.KrollMethodDynamic, pname);
 		setGetterOrSetter(pname, 0, setterKm, true);
 		put(buildMethodName("set", pname), this, setterKm);
 
@@ -352,7 +359,7 @@ public class KrollObject extends ScriptableObject
 			args[1] = value;
 
 			try {
-				setMethod.invoke(target, argsForMethod(setMethod, args, getKrollContext().getTiContext()));
+				invokeMethod(setMethod, args);
 			} catch (InvocationTargetException e) {
 				Log.e(LCAT, "Error setting property: " + e.getMessage(), e);
 				Context.throwAsScriptRuntimeEx(e);
@@ -401,6 +408,10 @@ public class KrollObject extends ScriptableObject
 
 		if (has(name, start) || (value != null && (value instanceof KrollObject /*|| value instanceof Function*/)) && !isDynamic) {
 			super.put(name, start, value);
+		} else if (KrollStats.enabled) {
+			long begin = System.nanoTime();
+			handleMethodOrProperty(name, start, false, value);
+			KrollStats.record(target.getClass(), "put:" + name, 0, System.nanoTime() - begin, 0);
 		} else {
 			handleMethodOrProperty(name, start, false, value);
 		}
@@ -412,6 +423,15 @@ public class KrollObject extends ScriptableObject
 	}
 
 	// Module Support
+	private static boolean isModuleName(String name)
+	{
+		if (name.length() == 0) {
+			return false;
+		}
+		char c = name.charAt(0);
+		return (c >= 'A' && c <= 'Z') || name.equals("iPhone");
+	}
+
 	private String createModuleName(String name) {
 		StringBuilder sb = new StringBuilder(100);
 		sb.append(getModulePath());
@@ -451,33 +471,16 @@ public class KrollObject extends ScriptableObject
 			Log.d(LCAT, "Module: " + moduleName);
 		}
 
-		try {
-			Class<?> c = Class.forName(moduleName);
-			if (c != null) {
-				if (context == null ) {
-					context = (TiContext) (weakKrollContext.get().getTiContext());
-				}
+		KrollModuleFactory factory = KrollModuleRegistry.lookup(moduleName);
+		if (factory != null) {
+			if (context == null ) {
+				context = (TiContext) (weakKrollContext.get().getTiContext());
+			}
 
-				Constructor<?>[] ctors = c.getConstructors();
-				if (ctors.length == 1) {
-					Constructor<?> ctor = ctors[0];
-					Class<?>[] types = ctor.getParameterTypes();
-					if (types.length == 0) {
-						p = ctor.newInstance();
-					} else if (types.length == 1) {
-						p = ctor.newInstance(context);
-					} else {
-						Log.e(LCAT, "No valid constructor found.");
-					}
-					if (p != null && p instanceof TiModule && c.isAnnotationPresent(ContextSpecific.class)) {
-						context.cacheModule(name, (TiModule)p);
-					}
-				} else {
-					Log.w(LCAT, "Modules currently requires only one contructor in a module.");
-				}
+			p = factory.createModule(context);
+			if (p != null && p instanceof TiModule && p.getClass().isAnnotationPresent(ContextSpecific.class)) {
+				context.cacheModule(name, (TiModule)p);
 			}
-		} catch (Exception e) {
-			Log.e(LCAT, "No Module for name " + name + " expected " + moduleName);
 		}
 
 		return p;
@@ -485,6 +488,44 @@ public class KrollObject extends ScriptableObject
 
 	// Method support
 
+	private KrollBinding getBinding()
+	{
+		if (!targetBindingResolved) {
+			if (target != null) {
+				targetBinding = KrollBinding.forClass(target.getClass());
+			}
+			targetBindingResolved = true;
+		}
+		return targetBinding;
+	}
+
+	// Prefer the generated binding for the target class, otherwise fall back to reflection.
+	private KrollMethod createKrollMethod(Method m, KrollMethodType type, String methodName)
+	{
+		KrollBinding binding = getBinding();
+		if (binding != null && m != null) {
+			int id = binding.getMethodId(m.getName());
+			if (id >= 0) {
+				return new KrollMethod(this, target, binding, id, type, methodName);
+			}
+		}
+		return new KrollMethod(this, target, m, type, methodName);
+	}
+
+	private Object invokeMethod(Method m, Object[] args)
+		throws InvocationTargetException, IllegalAccessException
+	{
+		TiContext context = getKrollContext().getTiContext();
+		KrollBinding binding = getBinding();
+		if (binding != null) {
+			int id = binding.getMethodId(m.getName());
+			if (id >= 0) {
+				return binding.invoke(id, target, argsForTypes(binding.getParameterTypes(id), args, context));
+			}
+		}
+		return m.invoke(target, argsForMethod(m, args, context));
+	}
+
 	private Object loadMethod(Class<?> source, String name)
 	{
 		Object o = null;
@@ -509,7 +550,13 @@ public class KrollObject extends ScriptableObject
 	// Type Conversion support
 
 	protected Object[] argsForMethod(Method method, Object[] args, TiContext context) {
-		Class<?>[] types = method.getParameterTypes();
+		if (DBG) {
+			Log.d(LCAT, "Method: " + method.getName());
+		}
+		return argsForTypes(method.getParameterTypes(), args, context);
+	}
+
+	protected Object[] argsForTypes(Class<?>[] types, Object[] args, TiContext context) {
 		Object []newArgs = null;
 		Object []varArgs = null;
 		boolean varargs = false;
@@ -517,7 +564,7 @@ public class KrollObject extends ScriptableObject
 		int start = 0;
 		
 		if (DBG) {
-			Log.d(LCAT, "Method: " + method.getName() + " Types: " + types.length + " Args: " + (args != null ? args.length : 0) + " varargs: " + varargs);
+			Log.d(LCAT, "Types: " + types.length + " Args: " + (args != null ? args.length : 0) + " varargs: " + varargs);
 		}
 
 		if (args != null && types.length > 0) {
@@ -529,7 +576,8 @@ public class KrollObject extends ScriptableObject
 		}
 		
 		if (args != null && types.length != 0 && args.length >= types.length-start) {
-			if (types[types.length - 1].isArray()) {
+			Class<?> last = types[types.length - 1];
+			if (last.isArray() && !last.getComponentType().isPrimitive()) {
 				Object o = args[types.length-(start+1)];
 				if (!(o instanceof Scriptable) || (o instanceof Scriptable && !isArrayLike((Scriptable) o))) {
 					varargs = true;
@@ -539,7 +587,7 @@ public class KrollObject extends ScriptableObject
 		}
 
 		if (DBG) {
-			Log.d(LCAT, "Method: " + method.getName() + " varargs: " + varargs);
+			Log.d(LCAT, "varargs: " + varargs);
 		}
 		
 		newArgs = new Object[types.length];
@@ -597,7 +645,16 @@ public class KrollObject extends ScriptableObject
 		} else if (value instanceof Scriptable) {
 			Scriptable svalue = (Scriptable) value;
 			if (isArrayLike(svalue)) {
-				o = toArray(svalue);
+				// methods taking primitive arrays get them filled directly, without boxing
+				if (target == double[].class) {
+					o = toDoubleArray(svalue);
+				} else if (target == int[].class) {
+					o = toIntArray(svalue);
+				} else if (target == float[].class) {
+					o = toFloatArray(svalue);
+				} else {
+					o = toArray(svalue);
+				}
 			} else if (value instanceof KrollObject) {
 				o = ((KrollObject) value).target;
 			} else if (svalue.getClassName().equals("Date")) {
@@ -634,7 +691,9 @@ public class KrollObject extends ScriptableObject
 				//Log.w(LCAT, "Unhandled type conversion of Scriptable: value: " + value.toString() + " type: " + value.getClass().getName());
 			}
 		} else {
-			if (value.getClass().isArray()) {
+			if (value.getClass().getComponentType() != null && value.getClass().getComponentType().isPrimitive()) {
+				o = value;
+			} else if (value.getClass().isArray()) {
 				Object[] values = (Object[]) value;
 				Object[] newValues = new Object[values.length];
 				for(int i = 0; i < values.length; i++) {
@@ -668,6 +727,49 @@ public class KrollObject extends ScriptableObject
 		return a;
 	}
 	
+	private int arrayLength(Scriptable svalue) {
+		return (Integer) Context.jsToJava(svalue.get("length", this), Integer.class);
+	}
+
+	private double numberAt(Scriptable svalue, int index)
+	{
+		Object v = svalue.get(index, svalue);
+		if (v instanceof Number) {
+			return ((Number) v).doubleValue();
+		}
+		return Context.toNumber(v);
+	}
+
+	private double[] toDoubleArray(Scriptable svalue)
+	{
+		int len = arrayLength(svalue);
+		double[] a = new double[len];
+		for(int i = 0; i < len; i++) {
+			a[i] = numberAt(svalue, i);
+		}
+		return a;
+	}
+
+	private float[] toFloatArray(Scriptable svalue)
+	{
+		int len = arrayLength(svalue);
+		float[] a = new float[len];
+		for(int i = 0; i < len; i++) {
+			a[i] = (float) numberAt(svalue, i);
+		}
+		return a;
+	}
+
+	private int[] toIntArray(Scriptable svalue)
+	{
+		int len = arrayLength(svalue);
+		int[] a = new int[len];
+		for(int i = 0; i < len; i++) {
+			a[i] = (int) numberAt(svalue, i);
+		}
+		return a;
+	}
+
 	public static Object asJSUndefined(KrollContext kroll) {
 		return Context.javaToJS(Undefined.instance, kroll.getScope());
 	}
@@ -676,7 +778,7 @@ public class KrollObject extends ScriptableObject
 		return Undefined.instance;
 	}
 	
-	@SuppressWarnings("serial")
+	@SuppressWarnings("unchecked")
 	public static Object fromNative(Object value, KrollContext kroll)
 	{
 		Object o = value;
@@ -724,8 +826,8 @@ public class KrollObject extends ScriptableObject
 				String name = (String)iter.next();
 				try
 				{
-					Object entry = fromNative(json.get(name),kroll);
-					map.put(name,entry);
+					// converted when script reads it
+					map.put(name,json.get(name));
 				}
 				catch(JSONException ig)
 				{
@@ -735,65 +837,37 @@ public class KrollObject extends ScriptableObject
 			return fromNative(map,kroll);
 		}
 		else if (value instanceof TiDict || value instanceof Map) {
-			ScriptableObject so = new ScriptableObject(kroll.getScope(), ScriptableObject.getObjectPrototype(kroll.getScope())) {
-				@Override
-				public String getClassName() {
-					return "Object";
-				}
-
-				public String toString()
-				{
-					StringBuilder sb = new StringBuilder();
-					sb.append("{ ");
-
-					Object[] ids = (Object[]) getIds();
-					String sep = "";
-
-					if (ids != null) {
-						for(Object id : ids) {
-							sb.append(" '").append(id).append("' : ");
-							Object o = get(id.toString(), this);
-							if (o == null) {
-								sb.append("null");
-							} else if (o instanceof String) {
-								sb.append(" '").append((String)o).append("' ");
-							} else if (o instanceof Number) {
-								sb.append(o);
-							} else if (o instanceof ScriptableObject) {
-								sb.append(o);
-							} else {
-								sb.append(o);
-							}
-
-							sb.append(sep);
-							sep = ",";
-						}
-					}
-
-					sb.append(" }");
-
-					return sb.toString();
-				}
-			};
-			if (value instanceof TiDict)
-			{
-				TiDict d = (TiDict) value;
-				for(String key : d.keySet()) {
-					Object localValue = d.get(key);
-					so.put(key, so, fromNative(localValue, kroll));
-				}
-			}
-			else
-			{
-				Map<String,Object> d = (Map<String,Object>)value;
-				for(String key : d.keySet()) {
-					so.put(key, so, fromNative(d.get(key), kroll));
-				}
-			}
-			o = so;
+			// Values are converted lazily as script reads them, from a copy taken now.
+			// Pooled events are recycled once listeners have run.
+			o = new KrollDictObject(kroll, (Map<String,Object>) value);
 		} else if (value instanceof Date) {
 			Date date = (Date) value;
 			o = Context.getCurrentContext().newObject(kroll.getScope(), "Date", new Object[] { date.getTime() });
+		} else if (value instanceof Object[]) {
+			Object[] values = (Object[]) value;
+			Object[] jsArray = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				jsArray[i] = fromNative(values[i], kroll);
+			}
+
+			o = Context.getCurrentContext().newObject(kroll.getScope(), "Array", jsArray);
+		} else if (value instanceof double[]) {
+			// numbers are already JS values, skip the per element conversion
+			double[] values = (double[]) value;
+			Object[] jsArray = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				jsArray[i] = values[i];
+			}
+
+			o = Context.getCurrentContext().newObject(kroll.getScope(), "Array", jsArray);
+		} else if (value instanceof int[]) {
+			int[] values = (int[]) value;
+			Object[] jsArray = new Object[values.length];
+			for (int i = 0; i < values.length; i++) {
+				jsArray[i] = values[i];
+			}
+
+			o = Context.getCurrentContext().newObject(kroll.getScope(), "Array", jsArray);
 		} else if (value.getClass().isArray()) {
 			int length = Array.getLength(value);
 			Object[] jsArray = new Object[length];
@@ -0,0 +1,128 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.appcelerator.titanium.util.Log;
+import org.appcelerator.titanium.util.TiConfig;
+import org.mozilla.javascript.Script;
+
+/**
+ * Process wide LRU of compiled scripts shared by all KrollContexts, so that reopening
+ * a window with the same url doesn't read and parse the file again. Entries are keyed
+ * by the resolved path and only valid for the modification stamp they were compiled from.
+ */
+public class KrollScriptCache
+{
+	private static final String LCAT = "KrollScriptCache";
+	private static final boolean DBG = TiConfig.LOGD;
+
+	private static final int MAX_ENTRIES = 64;
+	private static final int MAX_SOURCE_CHARS = 512 * 1024;
+
+	private static class Entry
+	{
+		private Script script;
+		private double stamp;
+		private int length;
+
+		Entry(Script script, double stamp, int length) {
+			this.script = script;
+			this.stamp = stamp;
+			this.length = length;
+		}
+	}
+
+	private static final LinkedHashMap<String, Entry> scripts = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private static int sourceChars = 0;
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	public static Script get(String path, double stamp)
+	{
+		Entry entry = null;
+		synchronized (scripts) {
+			entry = scripts.get(path);
+			if (entry != null && entry.stamp != stamp) {
+				removeEntry(path);
+				entry = null;
+			}
+		}
+
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.script;
+	}
+
+	public static void put(String path, double stamp, Script script, int length)
+	{
+		if (length > MAX_SOURCE_CHARS) {
+			return;
+		}
+
+		synchronized (scripts) {
+			removeEntry(path);
+			scripts.put(path, new Entry(script, stamp, length));
+			sourceChars += length;
+
+			// Least recently used entries are first
+			Iterator<Map.Entry<String, Entry>> entries = scripts.entrySet().iterator();
+			while ((scripts.size() > MAX_ENTRIES || sourceChars > MAX_SOURCE_CHARS) && entries.hasNext()) {
+				Map.Entry<String, Entry> eldest = entries.next();
+				if (eldest.getKey().equals(path)) {
+					continue;
+				}
+				sourceChars -= eldest.getValue().length;
+				entries.remove();
+			}
+		}
+	}
+
+	private static void removeEntry(String path)
+	{
+		Entry old = scripts.remove(path);
+		if (old != null) {
+			sourceChars -= old.length;
+		}
+	}
+
+	/**
+	 * Drops every compiled script, called when the system is low on memory.
+	 */
+	public static void clear()
+	{
+		synchronized (scripts) {
+			if (DBG) {
+				Log.d(LCAT, "Clearing " + scripts.size() + " scripts, hits: " + hits.get() + " misses: " + misses.get());
+			}
+			scripts.clear();
+			sourceChars = 0;
+		}
+	}
+
+	public static int size() {
+		synchronized (scripts) {
+			return scripts.size();
+		}
+	}
+
+	public static long getHits() {
+		return hits.get();
+	}
+
+	public static long getMisses() {
+		return misses.get();
+	}
+}
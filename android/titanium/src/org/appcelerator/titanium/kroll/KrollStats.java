@@ -0,0 +1,187 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.kroll;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.util.Log;
+
+/**
+ * Optional per (class, method) statistics for calls crossing the bridge.
+ *
+ * Call sites check {@link #enabled} before reading the clock, so nothing is recorded
+ * and no keys are built while it's off. Each entry keeps three fixed size histograms
+ * (argument conversion, invoke and result conversion) with power of two microsecond
+ * buckets, so its size doesn't grow with the number of calls.
+ */
+public class KrollStats
+{
+	private static final String LCAT = "KrollStats";
+
+	public static final int PHASE_ARGS = 0;
+	public static final int PHASE_INVOKE = 1;
+	public static final int PHASE_RESULT = 2;
+
+	private static final String[] PHASE_NAMES = { "args", "invoke", "result" };
+
+	// bucket i counts samples below 2^i us, the last bucket takes the rest
+	private static final int BUCKETS = 16;
+
+	public static volatile boolean enabled = false;
+
+	private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	public static class Entry
+	{
+		private final String name;
+		private long calls;
+		private final long[][] buckets = new long[PHASE_NAMES.length][BUCKETS];
+		private final long[] totalNanos = new long[PHASE_NAMES.length];
+		private final long[] maxNanos = new long[PHASE_NAMES.length];
+
+		Entry(String name) {
+			this.name = name;
+		}
+
+		public synchronized void record(long argsNanos, long invokeNanos, long resultNanos)
+		{
+			calls++;
+			add(PHASE_ARGS, argsNanos);
+			add(PHASE_INVOKE, invokeNanos);
+			add(PHASE_RESULT, resultNanos);
+		}
+
+		private void add(int phase, long nanos)
+		{
+			if (nanos < 0) {
+				return;
+			}
+			long micros = nanos / 1000;
+			int bucket = 0;
+			while (bucket < BUCKETS - 1 && micros >= (1L << bucket)) {
+				bucket++;
+			}
+			buckets[phase][bucket]++;
+			totalNanos[phase] += nanos;
+			if (nanos > maxNanos[phase]) {
+				maxNanos[phase] = nanos;
+			}
+		}
+
+		public synchronized TiDict toDict()
+		{
+			TiDict d = new TiDict();
+			d.put("name", name);
+			d.put("calls", calls);
+			for (int p = 0; p < PHASE_NAMES.length; p++) {
+				TiDict phase = new TiDict();
+				phase.put("totalMicros", totalNanos[p] / 1000);
+				phase.put("maxMicros", maxNanos[p] / 1000);
+				phase.put("avgMicros", calls == 0 ? 0 : totalNanos[p] / calls / 1000);
+				Object[] histogram = new Object[BUCKETS];
+				for (int i = 0; i < BUCKETS; i++) {
+					histogram[i] = buckets[p][i];
+				}
+				phase.put("histogram", histogram);
+				d.put(PHASE_NAMES[p], phase);
+			}
+			return d;
+		}
+
+		synchronized void write(StringBuilder sb)
+		{
+			sb.append(name).append(" calls=").append(calls).append('\n');
+			for (int p = 0; p < PHASE_NAMES.length; p++) {
+				sb.append("  ").append(PHASE_NAMES[p])
+					.append(" total=").append(totalNanos[p] / 1000).append("us")
+					.append(" max=").append(maxNanos[p] / 1000).append("us")
+					.append(" buckets=");
+				for (int i = 0; i < BUCKETS; i++) {
+					if (i > 0) {
+						sb.append(',');
+					}
+					sb.append(buckets[p][i]);
+				}
+				sb.append('\n');
+			}
+		}
+	}
+
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static Entry entry(Class<?> c, String method)
+	{
+		String key = c.getName() + "." + method;
+		Entry e = entries.get(key);
+		if (e == null) {
+			e = new Entry(key);
+			Entry existing = entries.putIfAbsent(key, e);
+			if (existing != null) {
+				e = existing;
+			}
+		}
+		return e;
+	}
+
+	public static void record(Class<?> c, String method, long argsNanos, long invokeNanos, long resultNanos) {
+		entry(c, method).record(argsNanos, invokeNanos, resultNanos);
+	}
+
+	public static void reset() {
+		entries.clear();
+	}
+
+	public static TiDict getStats()
+	{
+		TiDict d = new TiDict();
+		for (Map.Entry<String, Entry> e : entries.entrySet()) {
+			d.put(e.getKey(), e.getValue().toDict());
+		}
+		return d;
+	}
+
+	/**
+	 * Writes the current statistics as text to the given file.
+	 */
+	public static boolean dump(File file)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("# bucket i counts calls under 2^i us\n");
+		for (Entry e : entries.values()) {
+			e.write(sb);
+		}
+
+		FileWriter writer = null;
+		try {
+			writer = new FileWriter(file);
+			writer.write(sb.toString());
+			return true;
+		} catch (IOException e) {
+			Log.e(LCAT, "Unable to write stats to " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+		return false;
+	}
+}
@@ -256,6 +256,25 @@ public abstract class TiViewProxy extends TiProxy implements Handler.Callback
 
 	public abstract TiUIView createView(Activity activity);
 
+	/**
+	 * Appends the proxy classes of this view and its children, nested in parentheses. Views
+	 * with equal signatures have the same structure and can be rebound to each other's data.
+	 */
+	public void appendLayoutSignature(StringBuilder sb)
+	{
+		sb.append(getClass().getSimpleName());
+		if (children != null && children.size() > 0) {
+			sb.append('(');
+			for (int i = 0; i < children.size(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				children.get(i).appendLayoutSignature(sb);
+			}
+			sb.append(')');
+		}
+	}
+
 	public void add(TiViewProxy child) {
 		if (children == null) {
 			children = new ArrayList<TiViewProxy>();
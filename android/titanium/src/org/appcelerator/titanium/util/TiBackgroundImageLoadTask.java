@@ -6,6 +6,7 @@
  */
 package org.appcelerator.titanium.util;
 
+import java.io.IOException;
 import java.lang.ref.SoftReference;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -38,6 +39,8 @@ public abstract class TiBackgroundImageLoadTask
 	public TiBackgroundImageLoadTask(TiContext tiContext, Integer imageWidth, Integer imageHeight)
 	{
 		this.softTiContext = new SoftReference<TiContext>(tiContext);
+		this.imageWidth = imageWidth;
+		this.imageHeight = imageHeight;
 	}
 
 	@Override
@@ -62,41 +65,23 @@ public abstract class TiBackgroundImageLoadTask
 			retry = false;
 
 			try {
-				d = tfh.loadDrawable(url, false);
-				if (d != null) {
-					BitmapDrawable bd = (BitmapDrawable) d;
-					Bitmap bitmap = bd.getBitmap();
-					if (bitmap != null) {
-						int w = bitmap.getWidth();
-						int h = bitmap.getHeight();
-	
-						if (imageHeight != null || imageWidth != null) {
-							if (imageWidth != null) {
-								w = imageWidth;
-							}
-							if (imageHeight != null) {
-								h = imageHeight;
-							}
-							Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap, w, h, true);
-							bitmap.recycle();
-							d = new BitmapDrawable(scaledBitmap);
-						}
-					} else {
-						if (DBG) {
-							Log.d(LCAT, "BitmapDrawable.getBitmap() (url '" + url + "') returned null");
-						}
-						return null;
-					}
-
+				int w = imageWidth != null ? imageWidth : 0;
+				int h = imageHeight != null ? imageHeight : 0;
+				Bitmap bitmap = TiImageCache.loadBitmap(tfh, url, w, h);
+				if (bitmap != null) {
+					d = new BitmapDrawable(bitmap);
 				} else {
 					Log.w(LCAT, "Unable to load image from " + url);
 				}
+			} catch (IOException e) {
+				Log.w(LCAT, "Unable to load image from " + url + ": " + e.getMessage());
 			} catch (OutOfMemoryError e) {
 				Log.e(LCAT, "Not enough memory left to load image: " + url + " : " + e.getMessage());
 				retryCount -= 1;
 				if (retryCount > 0) {
 					retry = true;
 					Log.i(LCAT, "Signalling a GC, will retry load.");
+					TiImageCache.clear();
 					System.gc(); // See if we can force a compaction
 					try {
 						Thread.sleep(1000);
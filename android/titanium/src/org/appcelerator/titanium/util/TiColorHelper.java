@@ -8,67 +8,137 @@
 package org.appcelerator.titanium.util;
 
 import java.util.HashMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import android.graphics.Color;
 
 public class TiColorHelper
 {
+	// Kept for compatibility, parsing no longer uses them
 	static Pattern shortHexPattern = Pattern.compile("#([0-9a-f])([0-9a-f])([0-9a-f])([0-9a-f]?)");
 	static Pattern rgbPattern = Pattern.compile("rgb\\(([0-9]{1,3}),([0-9]{1,3}),([0-9]{1,3})\\)");
 	static Pattern argbPattern = Pattern.compile("rgba\\(([0-9]{1,3}),([0-9]{1,3}),([0-9]{1,3}),([0-9]{1,3})\\)");
 
 	private static HashMap<String, Integer> colorTable;
 
+	private static final TiValueCache<Integer> cache = new TiValueCache<Integer>("TiColorHelper", 128);
+
 	public static int parseColor(String value) {
-		int color = Color.YELLOW; // Something noticeable
-		if (value != null) {
-			String lowval = value.trim().toLowerCase();
-
-			Matcher m = null;
-			if ((m = shortHexPattern.matcher(lowval)).matches()) {
-				StringBuilder sb = new StringBuilder();
-				sb.append("#");
-				for(int i = 1; i <= m.groupCount(); i++) {
-					String s = m.group(i);
-					sb.append(s).append(s);
-				}
-				String newColor = sb.toString();
-				color = Color.parseColor(newColor);
-			} else if ((m = rgbPattern.matcher(lowval)).matches()) {
-				color = Color.rgb(
-					Integer.valueOf(m.group(1)),
-					Integer.valueOf(m.group(2)),
-					Integer.valueOf(m.group(3))
-					);
-			} else if ((m = argbPattern.matcher(lowval)).matches()) {
-				color = Color.argb(
-						Integer.valueOf(m.group(4)),
-						Integer.valueOf(m.group(1)),
-						Integer.valueOf(m.group(2)),
-						Integer.valueOf(m.group(3))
-						);
+		if (value == null) {
+			return Color.YELLOW; // Something noticeable
+		}
+
+		Integer cached = cache.get(value);
+		if (cached == null) {
+			cached = parse(value);
+			cache.put(value, cached);
+		}
+		return cached;
+	}
+
+	private static int parse(String value)
+	{
+		int color = Color.YELLOW;
+		String lowval = value.trim().toLowerCase();
+		int length = lowval.length();
+
+		if (lowval.startsWith("#") && (length == 4 || length == 5) && isHex(lowval, 1, length)) {
+			// #rgb and #rgba, each digit doubled as Color.parseColor("#rrggbb[aa]") would read it
+			long v = 0;
+			for (int i = 1; i < length; i++) {
+				int d = Character.digit(lowval.charAt(i), 16);
+				v = (v << 8) | (d << 4) | d;
+			}
+			if (length == 4) {
+				v |= 0xff000000L;
+			}
+			color = (int) v;
+		} else if (lowval.startsWith("rgb(") && lowval.endsWith(")")) {
+			int[] c = parseComponents(lowval, 4, 3);
+			if (c != null) {
+				color = Color.rgb(c[0], c[1], c[2]);
 			} else {
-				// Try the parser, will throw illegalArgument if it can't parse it.
-				try {
-					color = Color.parseColor(lowval);
-				} catch (IllegalArgumentException e) {
-					if (colorTable == null) {
-						buildColorTable();
-					}
-
-					if (colorTable.containsKey(lowval)) {
-						color = colorTable.get(lowval);
-					} else {
-						Log.w("TiColorHelper", "Unknown color: " + value);
-					}
-				}
+				color = parseNamed(value, lowval);
+			}
+		} else if (lowval.startsWith("rgba(") && lowval.endsWith(")")) {
+			int[] c = parseComponents(lowval, 5, 4);
+			if (c != null) {
+				color = Color.argb(c[3], c[0], c[1], c[2]);
+			} else {
+				color = parseNamed(value, lowval);
+			}
+		} else {
+			color = parseNamed(value, lowval);
+		}
+		return color;
+	}
+
+	private static int parseNamed(String value, String lowval)
+	{
+		int color = Color.YELLOW;
+		// Try the parser, will throw illegalArgument if it can't parse it.
+		try {
+			color = Color.parseColor(lowval);
+		} catch (IllegalArgumentException e) {
+			if (colorTable == null) {
+				buildColorTable();
+			}
+
+			if (colorTable.containsKey(lowval)) {
+				color = colorTable.get(lowval);
+			} else {
+				Log.w("TiColorHelper", "Unknown color: " + value);
 			}
 		}
 		return color;
 	}
 
+	private static boolean isHex(String s, int start, int end)
+	{
+		for (int i = start; i < end; i++) {
+			char c = s.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads count comma separated numbers of 1 to 3 digits, from start up to the closing
+	 * parenthesis. Returns null if anything else is in between.
+	 */
+	private static int[] parseComponents(String s, int start, int count)
+	{
+		int[] components = new int[count];
+		int end = s.length() - 1;
+		int i = start;
+		for (int n = 0; n < count; n++) {
+			int digits = 0;
+			int v = 0;
+			while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+				v = v * 10 + (s.charAt(i) - '0');
+				i++;
+				digits++;
+			}
+			if (digits == 0 || digits > 3) {
+				return null;
+			}
+			components[n] = v;
+			if (n < count - 1) {
+				if (i >= end || s.charAt(i) != ',') {
+					return null;
+				}
+				i++;
+			}
+		}
+		return i == end ? components : null;
+	}
+
+	public static TiValueCache<Integer> getCache() {
+		return cache;
+	}
+
 	private static void buildColorTable() {
 		synchronized(TiColorHelper.class) {
 			colorTable = new HashMap<String, Integer>(16);
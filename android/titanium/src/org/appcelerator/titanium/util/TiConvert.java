@@ -27,6 +27,7 @@ import org.json.JSONObject;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.net.Uri;
+import android.util.TypedValue;
 
 public class TiConvert
 {
@@ -67,10 +68,10 @@ public class TiConvert
                         sa[i] = (String) a[i];
                     }
                     d.put(key, sa);
-                } else if (v != null && v instanceof Double) {
+                } else if (v != null && v instanceof Number && isNumberArray(a)) {
                     double[] da = new double[len];
                     for(int i = 0; i < len; i++) {
-                        da[i] = (Double) a[i];
+                        da[i] = ((Number) a[i]).doubleValue();
                     }
                     d.put(key, da);
                 } else if (v != null && v instanceof KrollObject) {
@@ -114,6 +115,15 @@ public class TiConvert
 
         return value;
     }
+    private static boolean isNumberArray(Object[] a) {
+        for (Object o : a) {
+            if (!(o instanceof Number)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // Color conversions
     public static int toColor(String value) {
         return TiColorHelper.parseColor(value);
@@ -224,7 +234,7 @@ public class TiConvert
         }
     }
     public static boolean toBoolean(TiDict d, String key) {
-        return toBoolean(d.get(key));
+        return d.getBoolean(key);
     }
 
     public static int toInt(Object value) {
@@ -239,7 +249,7 @@ public class TiConvert
         }
     }
     public static int toInt(TiDict d, String key) {
-        return toInt(d.get(key));
+        return d.getIntValue(key);
     }
 
     public static float toFloat(Object value) {
@@ -269,7 +279,7 @@ public class TiConvert
         }
     }
     public static double toDouble(TiDict d, String key) {
-        return toDouble(d.get(key));
+        return d.getDoubleValue(key);
     }
 
     public static String toString(Object value) {
@@ -297,9 +307,10 @@ public class TiConvert
     
     public static TiDimension toTiDimension(Object value) {
         if (value instanceof Number) {
-            value = value.toString() + "px";
+            // Same as parsing value + "px" without building the string
+            return new TiDimension(((Number) value).floatValue(), TypedValue.COMPLEX_UNIT_PX);
         }
-        return toTiDimension((String) value);
+        return toTiDimension(toString(value));
     }
 
     public static TiDimension toTiDimension(TiDict d, String key) {
@@ -371,6 +382,10 @@ public class TiConvert
     				json.put(key, (Boolean) o);
     			} else if (o instanceof TiDict) {
     				json.put(key, toJSON((TiDict) o));
+    			} else if (o instanceof double[]) {
+    				json.put(key, toJSONArray((double[]) o));
+    			} else if (o instanceof int[]) {
+    				json.put(key, toJSONArray((int[]) o));
     			} else if (o.getClass().isArray()) {
     				json.put(key, toJSONArray((Object[]) o));
     			}  else {
@@ -405,6 +420,10 @@ public class TiConvert
 				ja.put((Boolean) o);
 			} else if (o instanceof TiDict) {
 				ja.put(toJSON((TiDict) o));
+			} else if (o instanceof double[]) {
+				ja.put(toJSONArray((double[]) o));
+			} else if (o instanceof int[]) {
+				ja.put(toJSONArray((int[]) o));
 			} else if (o.getClass().isArray()) {
 				ja.put(toJSONArray((Object[]) o));
 			} else {
@@ -413,4 +432,24 @@ public class TiConvert
     	}
     	return ja;
     }
+
+    public static JSONArray toJSONArray(double[] a) {
+    	JSONArray ja = new JSONArray();
+    	for (double d : a) {
+    		try {
+    			ja.put(d);
+    		} catch (JSONException e) {
+    			Log.w(LCAT, "Unable to JSON encode value: " + d);
+    		}
+    	}
+    	return ja;
+    }
+
+    public static JSONArray toJSONArray(int[] a) {
+    	JSONArray ja = new JSONArray();
+    	for (int i : a) {
+    		ja.put(i);
+    	}
+    	return ja;
+    }
 }
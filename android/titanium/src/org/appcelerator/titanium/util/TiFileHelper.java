@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -137,8 +138,13 @@ public class TiFileHelper
 					Log.e(LCAT, "Unknown section identifier: " + section);
 				}
 			} else if (URLUtil.isNetworkUrl(path)) {
-				URL u = new URL(path);
-				InputStream lis = u.openStream();
+				is = TiImageCache.openDiskStream(context, path);
+				if (is != null) {
+					return is;
+				}
+
+				URLConnection connection = new URL(path).openConnection();
+				InputStream lis = connection.getInputStream();
 				ByteArrayOutputStream bos = null;
 				try {
 					bos = new ByteArrayOutputStream(8192);
@@ -149,7 +155,9 @@ public class TiFileHelper
 						bos.write(buf, 0, count);
 					}
 
-					is = new ByteArrayInputStream(bos.toByteArray());
+					byte[] data = bos.toByteArray();
+					TiImageCache.putDiskBytes(context, path, data, TiImageCache.expirationOf(connection));
+					is = new ByteArrayInputStream(data);
 
 				} catch (IOException e) {
 
@@ -272,15 +280,13 @@ public class TiFileHelper
 						}
 					}
 				}
-				if (is == null) {
-					is = openInputStream(path, report);
-				}
-				Bitmap b = TiUIHelper.createBitmap(is);
+				// The probe's stream is closed by loadBitmap, even on a cache hit
+				Bitmap b = loadBitmap(path, is, report);
+				is = null;
 				d = nph.process(b);
 				//d = nph.process(Drawable.createFromStream(is, path));
 			} else {
-				is = openInputStream(path, report);
-				Bitmap b = TiUIHelper.createBitmap(is);
+				Bitmap b = loadBitmap(path, null, report);
 				d = new BitmapDrawable(b);
 				//d = Drawable.createFromStream(is, path);
 			}
@@ -305,6 +311,31 @@ public class TiFileHelper
 		return d;
 	}
 
+	// Decodes path through the image cache, opening it unless is was already opened for it.
+	private Bitmap loadBitmap(String path, InputStream is, boolean report)
+		throws IOException
+	{
+		try {
+			Bitmap b = TiImageCache.getBitmap(path, 0, 0);
+			if (b == null) {
+				if (is == null) {
+					is = openInputStream(path, report);
+				}
+				b = TiUIHelper.createBitmap(is);
+				TiImageCache.putBitmap(path, 0, 0, b);
+			}
+			return b;
+		} finally {
+			if (is != null) {
+				try {
+					is.close();
+				} catch (IOException e) {
+					//Ignore
+				}
+			}
+		}
+	}
+
 	public boolean isTitaniumResource(String s) {
 		boolean result = false;
 		if (s != null && s.startsWith(TI_RESOURCE_PREFIX)) {
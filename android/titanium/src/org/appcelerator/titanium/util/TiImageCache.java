@@ -0,0 +1,484 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.appcelerator.titanium.TiDict;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+/**
+ * Process wide two tier image cache. Decoded bitmaps are kept in an LRU bounded by their
+ * pixel bytes and keyed by url and target size, so an image shown in many places is only
+ * decoded once. Local files are also keyed by their modification time, so an overwritten
+ * file is decoded again. The bytes of remote images are kept in the app's cache directory,
+ * bounded by total file size, so they survive the memory tier being cleared on low memory
+ * and the app being restarted. Remote images expire as their Cache-Control or Expires
+ * headers say, after {@link #DEFAULT_MAX_AGE} without them, in both tiers.
+ *
+ * Cached bitmaps are shared by every view showing them and must never be recycled, see
+ * {@link #isShared(Bitmap)}.
+ */
+public class TiImageCache
+{
+	private static final String LCAT = "TiImageCache";
+	private static final boolean DBG = TiConfig.LOGD;
+
+	private static final long MAX_MEMORY_BYTES = Runtime.getRuntime().maxMemory() / 8;
+	private static final long MAX_DISK_BYTES = 8 * 1024 * 1024;
+	private static final String DISK_DIR = "tiimages";
+	public static final long DEFAULT_MAX_AGE = 60 * 60 * 1000;
+
+	private static final LinkedHashMap<String, Bitmap> bitmaps = new LinkedHashMap<String, Bitmap>(16, 0.75f, true);
+	private static long memoryBytes = 0;
+
+	// Every bitmap the memory tier has handed out, evicted ones may still be on screen.
+	private static final WeakHashMap<Bitmap, Boolean> shared = new WeakHashMap<Bitmap, Boolean>();
+	// When the bytes of each remote url stop being fresh, guarded by bitmaps.
+	private static final HashMap<String, Long> expirations = new HashMap<String, Long>();
+
+	private static final Object diskLock = new Object();
+	private static File diskDir;
+	private static long diskBytes = -1;
+
+	private static final AtomicLong memoryHits = new AtomicLong();
+	private static final AtomicLong memoryMisses = new AtomicLong();
+	private static final AtomicLong diskHits = new AtomicLong();
+	private static final AtomicLong diskMisses = new AtomicLong();
+
+	private static String key(String url, long stamp, int width, int height)
+	{
+		if (stamp != 0) {
+			url = stamp + "@" + url;
+		}
+		if (width <= 0 && height <= 0) {
+			return url;
+		}
+		return width + "x" + height + ":" + url;
+	}
+
+	// Local files may be overwritten, like KrollScriptCache their entries are keyed on the
+	// modification time. Packaged assets and remote urls have none.
+	private static long stampOf(String url)
+	{
+		String path = null;
+		if (url.startsWith("file://") && !url.startsWith("file:///android_asset/")) {
+			path = url.substring("file://".length());
+		} else if (url.startsWith("/")) {
+			path = url;
+		}
+		return path != null ? new File(path).lastModified() : 0;
+	}
+
+	// Must hold the bitmaps lock. Drops the entry once the remote bytes it came from expired.
+	private static Bitmap lookup(String url, String key)
+	{
+		Bitmap bitmap = bitmaps.get(key);
+		if (bitmap != null) {
+			Long expires = expirations.get(url);
+			if (expires != null && expires.longValue() <= System.currentTimeMillis()) {
+				bitmaps.remove(key);
+				memoryBytes -= byteCount(bitmap);
+				bitmap = null;
+			}
+		}
+		return bitmap;
+	}
+
+	private static int byteCount(Bitmap bitmap) {
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	/**
+	 * @return the decoded image for url at the given size, 0 meaning the image's own, or null.
+	 */
+	public static Bitmap getBitmap(String url, int width, int height)
+	{
+		String key = key(url, stampOf(url), width, height);
+		Bitmap bitmap = null;
+		synchronized (bitmaps) {
+			bitmap = lookup(url, key);
+		}
+
+		if (bitmap == null) {
+			memoryMisses.incrementAndGet();
+		} else {
+			memoryHits.incrementAndGet();
+		}
+		return bitmap;
+	}
+
+	/**
+	 * Caches a decoded image. Once put, the bitmap belongs to the cache and must not be
+	 * recycled by the caller. Images taking more than a quarter of the budget aren't kept.
+	 */
+	public static void putBitmap(String url, int width, int height, Bitmap bitmap)
+	{
+		if (bitmap == null || url == null) {
+			return;
+		}
+		putBitmap(key(url, stampOf(url), width, height), bitmap);
+	}
+
+	private static void putBitmap(String key, Bitmap bitmap)
+	{
+		int bytes = byteCount(bitmap);
+		if (bytes > MAX_MEMORY_BYTES / 4) {
+			return;
+		}
+
+		synchronized (bitmaps) {
+			Bitmap old = bitmaps.put(key, bitmap);
+			if (old != null) {
+				memoryBytes -= byteCount(old);
+			}
+			memoryBytes += bytes;
+			shared.put(bitmap, Boolean.TRUE);
+
+			// Least recently used entries are first
+			Iterator<Map.Entry<String, Bitmap>> entries = bitmaps.entrySet().iterator();
+			while (memoryBytes > MAX_MEMORY_BYTES && entries.hasNext()) {
+				Map.Entry<String, Bitmap> eldest = entries.next();
+				if (eldest.getKey().equals(key)) {
+					continue;
+				}
+				memoryBytes -= byteCount(eldest.getValue());
+				entries.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return whether bitmap came from the cache, views replacing it must not recycle it.
+	 */
+	public static boolean isShared(Bitmap bitmap)
+	{
+		synchronized (bitmaps) {
+			return shared.containsKey(bitmap);
+		}
+	}
+
+	/**
+	 * Loads url through both tiers, scaling to width and height when they are set.
+	 */
+	public static Bitmap loadBitmap(TiFileHelper tfh, String url, int width, int height)
+		throws IOException
+	{
+		boolean scale = width > 0 || height > 0;
+		long stamp = stampOf(url);
+		String key = key(url, stamp, width, height);
+		Bitmap bitmap = null;
+		Bitmap original = null;
+		synchronized (bitmaps) {
+			bitmap = lookup(url, key);
+			if (bitmap == null && scale) {
+				original = lookup(url, key(url, stamp, 0, 0));
+			}
+		}
+
+		// One load is one hit or miss, a cached original only needs scaling
+		if (bitmap == null && original == null) {
+			memoryMisses.incrementAndGet();
+		} else {
+			memoryHits.incrementAndGet();
+		}
+		if (bitmap != null) {
+			return bitmap;
+		}
+
+		if (original == null) {
+			InputStream is = tfh.openInputStream(url, false);
+			if (is == null) {
+				return null;
+			}
+			try {
+				original = TiUIHelper.createBitmap(is);
+			} finally {
+				try {
+					is.close();
+				} catch (IOException e) {
+					// Ignore
+				}
+			}
+			if (original == null) {
+				return null;
+			}
+		}
+
+		if (scale) {
+			int w = width > 0 ? width : original.getWidth();
+			int h = height > 0 ? height : original.getHeight();
+			bitmap = Bitmap.createScaledBitmap(original, w, h, true);
+			if (bitmap != original && !isShared(original)) {
+				original.recycle();
+			}
+		} else {
+			bitmap = original;
+		}
+
+		putBitmap(key, bitmap);
+		return bitmap;
+	}
+
+	private static File getDiskDir(Context context)
+	{
+		if (diskDir == null) {
+			diskDir = new File(context.getCacheDir(), DISK_DIR);
+			if (!diskDir.exists()) {
+				diskDir.mkdirs();
+			}
+			diskBytes = 0;
+			File[] files = diskDir.listFiles();
+			if (files != null) {
+				for (File f : files) {
+					diskBytes += f.length();
+				}
+			}
+		}
+		return diskDir;
+	}
+
+	private static String fileNameFor(String url)
+	{
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			byte[] digest = md.digest(url.getBytes());
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (int i = 0; i < digest.length; i++) {
+				sb.append(Integer.toHexString((digest[i] >> 4) & 0xf));
+				sb.append(Integer.toHexString(digest[i] & 0xf));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			return Integer.toHexString(url.hashCode());
+		}
+	}
+
+	/**
+	 * @return when a response's bytes stop being fresh, from its Cache-Control max-age or
+	 * Expires header, {@link #DEFAULT_MAX_AGE} from now without either. 0 when they must not
+	 * be kept.
+	 */
+	public static long expirationOf(URLConnection connection)
+	{
+		long now = System.currentTimeMillis();
+		String cacheControl = connection.getHeaderField("Cache-Control");
+		if (cacheControl != null) {
+			String[] directives = cacheControl.toLowerCase().split(",");
+			for (int i = 0; i < directives.length; i++) {
+				String directive = directives[i].trim();
+				if (directive.equals("no-store") || directive.equals("no-cache")) {
+					return 0;
+				}
+				if (directive.startsWith("max-age=")) {
+					try {
+						long maxAge = Long.parseLong(directive.substring("max-age=".length()).trim());
+						return maxAge > 0 ? now + maxAge * 1000 : 0;
+					} catch (NumberFormatException e) {
+						// Fall back to Expires
+					}
+				}
+			}
+		}
+
+		long expires = connection.getExpiration();
+		if (expires != 0) {
+			return expires > now ? expires : 0;
+		}
+		return now + DEFAULT_MAX_AGE;
+	}
+
+	private static void setExpiration(String url, long expires)
+	{
+		synchronized (bitmaps) {
+			expirations.put(url, expires);
+		}
+	}
+
+	/**
+	 * @return a stream over the stored bytes of a remote image, or null if they aren't on
+	 * disk or have expired.
+	 */
+	public static InputStream openDiskStream(Context context, String url)
+	{
+		synchronized (diskLock) {
+			File f = new File(getDiskDir(context), fileNameFor(url));
+			if (f.exists()) {
+				DataInputStream is = null;
+				try {
+					// Each file starts with the time its bytes expire
+					is = new DataInputStream(new FileInputStream(f));
+					long expires = is.readLong();
+					if (expires > System.currentTimeMillis()) {
+						f.setLastModified(System.currentTimeMillis());
+						setExpiration(url, expires);
+						diskHits.incrementAndGet();
+						InputStream result = is;
+						is = null;
+						return result;
+					}
+					long length = f.length();
+					if (f.delete()) {
+						diskBytes -= length;
+					}
+				} catch (IOException e) {
+					Log.w(LCAT, "Unable to read cached image for " + url + ": " + e.getMessage());
+				} finally {
+					if (is != null) {
+						try {
+							is.close();
+						} catch (IOException e) {
+							// Ignore
+						}
+					}
+				}
+			}
+		}
+		diskMisses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Stores the bytes of a remote image until expires, see {@link #expirationOf}, dropping
+	 * the least recently used files once the directory is over its budget.
+	 */
+	public static void putDiskBytes(Context context, String url, byte[] data, long expires)
+	{
+		// Decoded copies in memory expire with the bytes
+		setExpiration(url, expires);
+		if (data.length > MAX_DISK_BYTES / 4 || expires <= System.currentTimeMillis()) {
+			return;
+		}
+
+		synchronized (diskLock) {
+			File dir = getDiskDir(context);
+			File f = new File(dir, fileNameFor(url));
+			File tmp = new File(dir, f.getName() + ".tmp");
+			DataOutputStream os = null;
+			try {
+				os = new DataOutputStream(new FileOutputStream(tmp));
+				os.writeLong(expires);
+				os.write(data);
+				os.close();
+				os = null;
+
+				if (f.exists()) {
+					diskBytes -= f.length();
+					f.delete();
+				}
+				long length = tmp.length();
+				if (tmp.renameTo(f)) {
+					diskBytes += length;
+				}
+			} catch (IOException e) {
+				Log.w(LCAT, "Unable to cache image for " + url + ": " + e.getMessage());
+			} finally {
+				if (os != null) {
+					try {
+						os.close();
+					} catch (IOException e) {
+						// Ignore
+					}
+				}
+				if (tmp.exists()) {
+					tmp.delete();
+				}
+			}
+
+			if (diskBytes > MAX_DISK_BYTES) {
+				trimDisk(dir);
+			}
+		}
+	}
+
+	// Deletes the oldest files until the directory is at three quarters of its budget.
+	private static void trimDisk(File dir)
+	{
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			public int compare(File a, File b) {
+				long d = a.lastModified() - b.lastModified();
+				return d < 0 ? -1 : (d > 0 ? 1 : 0);
+			}
+		});
+
+		long target = MAX_DISK_BYTES * 3 / 4;
+		for (int i = 0; i < files.length && diskBytes > target; i++) {
+			long length = files[i].length();
+			if (files[i].delete()) {
+				diskBytes -= length;
+			}
+		}
+	}
+
+	/**
+	 * Drops the decoded bitmaps, called when the system is low on memory. Bitmaps still on
+	 * screen stay valid, the disk tier is kept.
+	 */
+	public static void clear()
+	{
+		synchronized (bitmaps) {
+			if (DBG) {
+				Log.d(LCAT, "Clearing " + bitmaps.size() + " bitmaps, " + getStats());
+			}
+			bitmaps.clear();
+			memoryBytes = 0;
+		}
+	}
+
+	public static void clearDisk(Context context)
+	{
+		synchronized (diskLock) {
+			File[] files = getDiskDir(context).listFiles();
+			if (files != null) {
+				for (File f : files) {
+					f.delete();
+				}
+			}
+			diskBytes = 0;
+		}
+	}
+
+	public static TiDict getStats()
+	{
+		TiDict d = new TiDict();
+		synchronized (bitmaps) {
+			d.putInt("bitmaps", bitmaps.size());
+			d.put("memoryBytes", memoryBytes);
+		}
+		synchronized (diskLock) {
+			d.put("diskBytes", diskBytes < 0 ? 0 : diskBytes);
+		}
+		d.put("memoryHits", memoryHits.get());
+		d.put("memoryMisses", memoryMisses.get());
+		d.put("diskHits", diskHits.get());
+		d.put("diskMisses", diskMisses.get());
+		return d;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.appcelerator.titanium.TiDict;
+
+/**
+ * Bounded LRU from raw property strings to their parsed value. Apps tend to style many
+ * views with the same few values, so dimensions and colors are parsed once per distinct
+ * string instead of on every property change. Values must be immutable or never handed
+ * out directly, they are shared by every thread that looks them up.
+ */
+public class TiValueCache<V>
+{
+	private final String name;
+	private final LinkedHashMap<String, V> values;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public TiValueCache(String name, final int maxEntries)
+	{
+		this.name = name;
+		this.values = new LinkedHashMap<String, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @return the cached value or null, counting the lookup as a hit or miss.
+	 */
+	public V get(String key)
+	{
+		V value = null;
+		synchronized (values) {
+			value = values.get(key);
+		}
+		if (value == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return value;
+	}
+
+	public void put(String key, V value)
+	{
+		synchronized (values) {
+			values.put(key, value);
+		}
+	}
+
+	public void clear()
+	{
+		synchronized (values) {
+			values.clear();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public double getHitRate()
+	{
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	public TiDict getStats()
+	{
+		TiDict d = new TiDict();
+		synchronized (values) {
+			d.putInt("size", values.size());
+		}
+		d.put("hits", getHits());
+		d.put("misses", getMisses());
+		d.putDouble("hitRate", getHitRate());
+		return d;
+	}
+
+	@Override
+	public String toString() {
+		return name + " hits: " + getHits() + " misses: " + getMisses();
+	}
+}
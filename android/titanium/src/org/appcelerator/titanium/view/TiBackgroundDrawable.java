@@ -10,6 +10,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import org.appcelerator.titanium.util.Log;
+import org.appcelerator.titanium.util.TiImageCache;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -159,7 +160,10 @@ public class TiBackgroundDrawable extends StateListDrawable {
 	public void releaseDelegate() {
 		if (background != null) {
 			if (background instanceof BitmapDrawable) {
-				((BitmapDrawable)background).getBitmap().recycle();
+				Bitmap b = ((BitmapDrawable)background).getBitmap();
+				if (b != null && !TiImageCache.isShared(b)) {
+					b.recycle();
+				}
 			}
 			background.setCallback(null);
 			background = null;
@@ -6,9 +6,6 @@
  */
 package org.appcelerator.titanium.view;
 
-import java.util.Comparator;
-import java.util.TreeSet;
-
 import org.appcelerator.titanium.util.Log;
 import org.appcelerator.titanium.util.TiConfig;
 
@@ -25,59 +22,17 @@ public class TiCompositeLayout extends ViewGroup
 
 	public static final int NOT_SET = Integer.MIN_VALUE;
 
-	private TreeSet<View> viewSorter;
-	private boolean needsSort;
 	private boolean vertical;
 
+	// Scratch space for onLayout, only used on the UI thread
+	private int[] horizontal = new int[2];
+	private int[] verticalPosition = new int[2];
+	private View[] unordered = new View[4];
+
 	public TiCompositeLayout(Context context, boolean vertical)
 	{
 		super(context);
 		this.vertical = vertical;
-		this.viewSorter = new TreeSet<View>(new Comparator<View>(){
-
-			public int compare(View o1, View o2)
-			{
-				TiCompositeLayout.LayoutParams p1 =
-					(TiCompositeLayout.LayoutParams) o1.getLayoutParams();
-				TiCompositeLayout.LayoutParams p2 =
-					(TiCompositeLayout.LayoutParams) o2.getLayoutParams();
-
-				int result = 0;
-
-				if (p1.optionZIndex != NOT_SET && p2.optionZIndex != NOT_SET) {
-					if (p1.optionZIndex < p2.optionZIndex) {
-						result = -1;
-					} else if (p1.optionZIndex > p2.optionZIndex) {
-						result = 1;
-					}
-				} else if (p1.optionZIndex != NOT_SET) {
-					if (p1.optionZIndex < 0) {
-						result = -1;
-					} if (p1.optionZIndex > 0) {
-						result = 1;
-					}
-				} else if (p2.optionZIndex != NOT_SET) {
-					if (p2.optionZIndex < 0) {
-						result = 1;
-					} if (p2.optionZIndex > 0) {
-						result = -1;
-					}
-				}
-
-				if (result == 0) {
-					if (p1.index < p2.index) {
-						result = -1;
-					} else if (p1.index > p2.index) {
-						result = 1;
-					} else {
-						throw new IllegalStateException("Ambiguous Z-Order");
-					}
-				}
-
-				return result;
-			}});
-
-		needsSort = true;
 		setOnHierarchyChangeListener(this);
 	}
 
@@ -100,14 +55,18 @@ public class TiCompositeLayout extends ViewGroup
 	}
 
 	public void onChildViewAdded(View parent, View child) {
-		needsSort = true;
+		// Moved to its place in the z-order on the next layout
+		ViewGroup.LayoutParams params = child.getLayoutParams();
+		if (params instanceof LayoutParams) {
+			((LayoutParams) params).ordered = false;
+		}
 		if (DBG && parent != null && child != null) {
 			Log.i("LAYOUT", "Attaching: " + viewToString(child) + " to " + viewToString(parent));
 		}
 	}
 
 	public void onChildViewRemoved(View parent, View child) {
-		needsSort = true;
+		// Removing a child keeps the others in order
 		if (DBG) {
 			Log.i("LAYOUT", "Removing: " + viewToString(child) + " from " + viewToString(parent));
 		}
@@ -151,15 +110,17 @@ public class TiCompositeLayout extends ViewGroup
 				constrainChild(child, w, wMode, h, hMode);
 			}
 
-			maxWidth = Math.max(maxWidth, child.getMeasuredWidth());
+			LayoutParams p = (LayoutParams) child.getLayoutParams();
+			int childWidth = measuredWidthOf(child, p);
+			int childHeight = measuredHeightOf(child, p);
+			maxWidth = Math.max(maxWidth, childWidth);
 			if (vertical) {
-				maxHeight += child.getMeasuredHeight();
-				LayoutParams p = (LayoutParams) child.getLayoutParams();
+				maxHeight += childHeight;
 				if (p.optionTop != NOT_SET) {
 					maxHeight += p.optionTop;
 				}
 			} else {
-				maxHeight = Math.max(maxHeight, child.getMeasuredHeight());
+				maxHeight = Math.max(maxHeight, childHeight);
 			}
 		}
 
@@ -224,7 +185,19 @@ public class TiCompositeLayout extends ViewGroup
 
 		int heightSpec = ViewGroup.getChildMeasureSpec(MeasureSpec.makeMeasureSpec(height, hMode), padding, childDimension);
 
+		// onLayout may have stretched the child since, which made the View's own measure
+		// cache miss on every pass. Reuse the size measured for the same specs unless the
+		// child asked for a new layout.
+		if (p.measured && p.measuredWidthSpec == widthSpec && p.measuredHeightSpec == heightSpec && !child.isLayoutRequested()) {
+			return;
+		}
+
 		child.measure(widthSpec, heightSpec);
+		p.measured = true;
+		p.measuredWidthSpec = widthSpec;
+		p.measuredHeightSpec = heightSpec;
+		p.measuredWidth = child.getMeasuredWidth();
+		p.measuredHeight = child.getMeasuredHeight();
 
 //      Useful for debugging.
 //		int childWidth = child.getMeasuredWidth();
@@ -245,6 +218,7 @@ public class TiCompositeLayout extends ViewGroup
 	@Override
 	protected void onLayout(boolean changed, int l, int t, int r, int b)
 	{
+		orderChildren();
 		int count = getChildCount();
 
 		int left = 0;
@@ -252,32 +226,8 @@ public class TiCompositeLayout extends ViewGroup
 		int right = r - l;
 		int bottom = b - t;
 
-		if (needsSort) {
-			if (count > 1) { // No need to sort one item.
-				if (DBG) {
-					Log.e("SORTING", "Sorting.....");
-				}
-				viewSorter.clear();
-
-				for(int i = 0; i < count; i++) {
-					View child = getChildAt(i);
-					TiCompositeLayout.LayoutParams params =
-						(TiCompositeLayout.LayoutParams) child.getLayoutParams();
-					params.index = i;
-					viewSorter.add(child);
-				}
-
-				detachAllViewsFromParent();
-				int i = 0;
-				for (View child : viewSorter) {
-					attachViewToParent(child, i++, child.getLayoutParams());
-				}
-			}
-			needsSort = false;
-		}
-
-		int[] horizontal = new int[2];
-		int[] vertical = new int[2];
+		int[] horizontal = this.horizontal;
+		int[] vertical = this.verticalPosition;
 
 		int currentHeight = 0;
 		for (int i = 0; i < count; i++) {
@@ -286,8 +236,8 @@ public class TiCompositeLayout extends ViewGroup
 				(TiCompositeLayout.LayoutParams) child.getLayoutParams();
 			if (child.getVisibility() != View.GONE) {
 				// Dimension is required from Measure. Positioning is determined here.
-				int childMeasuredWidth = child.getMeasuredWidth();
-				int childMeasuredHeight = child.getMeasuredHeight();
+				int childMeasuredWidth = measuredWidthOf(child, params);
+				int childMeasuredHeight = measuredHeightOf(child, params);
 				
 				computePosition(params.optionLeft, params.optionRight, childMeasuredWidth, left, right, horizontal);
 
@@ -321,6 +271,88 @@ public class TiCompositeLayout extends ViewGroup
 		}
 	}
 
+	/**
+	 * The width from the last constrainChild, child.getMeasuredWidth() may have been
+	 * stretched by onLayout since.
+	 */
+	protected int measuredWidthOf(View child, LayoutParams p) {
+		return p.measured ? p.measuredWidth : child.getMeasuredWidth();
+	}
+
+	protected int measuredHeightOf(View child, LayoutParams p) {
+		return p.measured ? p.measuredHeight : child.getMeasuredHeight();
+	}
+
+	// Children without a zIndex are ordered as 0
+	private static int zOrderKey(LayoutParams p) {
+		return p.optionZIndex == NOT_SET ? 0 : p.optionZIndex;
+	}
+
+	/**
+	 * Keeps children sorted by zIndex, ties in the order they were added. Children that
+	 * were added or had their zIndex changed since the last layout are detached and
+	 * inserted at their place with a binary search, the others are left attached.
+	 */
+	private void orderChildren()
+	{
+		int count = getChildCount();
+		if (count < 2) {
+			for (int i = 0; i < count; i++) {
+				markOrdered((LayoutParams) getChildAt(i).getLayoutParams());
+			}
+			return;
+		}
+
+		int unorderedCount = 0;
+		// Backwards, detaching a child doesn't move the ones still to be checked
+		for (int i = count - 1; i >= 0; i--) {
+			View child = getChildAt(i);
+			LayoutParams p = (LayoutParams) child.getLayoutParams();
+			if (!p.ordered || p.orderedZIndex != zOrderKey(p)) {
+				if (unorderedCount == unordered.length) {
+					View[] grown = new View[unordered.length * 2];
+					System.arraycopy(unordered, 0, grown, 0, unorderedCount);
+					unordered = grown;
+				}
+				unordered[unorderedCount++] = child;
+				detachViewFromParent(i);
+			}
+		}
+		if (unorderedCount == 0) {
+			return;
+		}
+		if (DBG) {
+			Log.d("LAYOUT", "Ordering " + unorderedCount + " of " + count + " children");
+		}
+
+		// In their previous order, so equal zIndexes stay in the order they were added
+		for (int n = unorderedCount - 1; n >= 0; n--) {
+			View child = unordered[n];
+			unordered[n] = null;
+			LayoutParams p = (LayoutParams) child.getLayoutParams();
+			int key = zOrderKey(p);
+
+			int low = 0;
+			int high = getChildCount();
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (zOrderKey((LayoutParams) getChildAt(mid).getLayoutParams()) <= key) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			attachViewToParent(child, low, p);
+			markOrdered(p);
+		}
+		invalidate();
+	}
+
+	private static void markOrdered(LayoutParams p) {
+		p.ordered = true;
+		p.orderedZIndex = zOrderKey(p);
+	}
+
 	// 0 is left/top, 1 is right/bottom
 	private void computePosition(int o0, int o1, int size, int p0, int p1, int[] pos)
 	{
@@ -372,6 +404,15 @@ public class TiCompositeLayout extends ViewGroup
 	{
 		protected int index;
 
+		// Maintained by the layout: z-order position and the last measure
+		boolean ordered;
+		int orderedZIndex;
+		boolean measured;
+		int measuredWidthSpec;
+		int measuredHeightSpec;
+		int measuredWidth;
+		int measuredHeight;
+
 		public int optionZIndex = NOT_SET;
 		public int optionLeft = NOT_SET;
 		public int optionTop = NOT_SET;
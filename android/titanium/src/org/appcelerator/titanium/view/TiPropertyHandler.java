@@ -0,0 +1,30 @@
+/**
+ * Appcelerator Titanium Mobile
+ * Copyright (c) 2009-2010 by Appcelerator, Inc. All Rights Reserved.
+ * Licensed under the terms of the Apache Public License
+ * Please see the LICENSE included with this distribution for details.
+ */
+package org.appcelerator.titanium.view;
+
+import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiProxy;
+
+/**
+ * Applies one property to a view. Handlers are stateless and shared by every view of the
+ * class they're registered for, see {@link TiUIView#registerPropertyHandler}.
+ */
+public abstract class TiPropertyHandler<V extends TiUIView>
+{
+	/**
+	 * Called on the UI thread when the property changes.
+	 */
+	public abstract void propertyChanged(V view, String key, Object oldValue, Object newValue, TiProxy proxy);
+
+	/**
+	 * Called from processProperties when the creation properties contain key. By default
+	 * the same as changing the value from nothing.
+	 */
+	public void processProperty(V view, String key, TiDict d) {
+		propertyChanged(view, key, null, d.get(key), view.getProxy());
+	}
+}
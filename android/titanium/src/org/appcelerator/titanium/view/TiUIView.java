@@ -7,12 +7,18 @@
 package org.appcelerator.titanium.view;
 
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.appcelerator.titanium.TiContext;
 import org.appcelerator.titanium.TiDict;
+import org.appcelerator.titanium.TiEvent;
 import org.appcelerator.titanium.TiProxy;
+import org.appcelerator.titanium.TiProxyBatchListener;
 import org.appcelerator.titanium.TiProxyListener;
 import org.appcelerator.titanium.proxy.TiViewProxy;
 import org.appcelerator.titanium.util.Log;
@@ -35,7 +41,7 @@ import android.view.animation.AnimationSet;
 import android.view.inputmethod.InputMethodManager;
 
 public abstract class TiUIView
-	implements TiProxyListener, OnFocusChangeListener
+	implements TiProxyListener, TiProxyBatchListener, OnFocusChangeListener
 {
 	private static final String LCAT = "TiUIView";
 	private static final boolean DBG = TiConfig.LOGD;
@@ -56,6 +62,29 @@ public abstract class TiUIView
 	protected TiAnimationBuilder animBuilder;
 	protected TiBackgroundDrawable background;
 
+	// Only touched on the UI thread
+	private int changeDepth;
+	private boolean layoutRequested;
+
+	/**
+	 * The property handlers of one view class, its own registrations on top of those of
+	 * its superclasses.
+	 */
+	private static class PropertyTable
+	{
+		private HashMap<String, TiPropertyHandler<TiUIView>> handlers;
+		// Registered below TiUIView, applied by processProperties in registration order
+		private LinkedHashMap<String, TiPropertyHandler<TiUIView>> processed;
+	}
+
+	// Guarded by itself
+	private static final HashMap<Class<?>, LinkedHashMap<String, TiPropertyHandler<TiUIView>>> registeredHandlers =
+		new HashMap<Class<?>, LinkedHashMap<String, TiPropertyHandler<TiUIView>>>();
+	private static final ConcurrentHashMap<Class<?>, PropertyTable> propertyTables =
+		new ConcurrentHashMap<Class<?>, PropertyTable>();
+
+	private PropertyTable propertyTable;
+
 	public TiUIView(TiViewProxy proxy)
 	{
 		if (idGenerator == null) {
@@ -64,6 +93,171 @@ public abstract class TiUIView
 
 		this.proxy = proxy;
 		this.layoutParams = new TiCompositeLayout.LayoutParams();
+		this.propertyTable = propertyTableFor(getClass());
+	}
+
+	/**
+	 * Registers the handler propertyChanged uses for key on viewClass and its subclasses.
+	 * Call it from the view class' static initializer so the handlers are in place before
+	 * the first view of the class is created. Handlers registered by subclasses are also
+	 * run by processProperties for the keys present in the creation properties, after
+	 * the properties TiUIView itself processes.
+	 */
+	@SuppressWarnings("unchecked")
+	protected static <V extends TiUIView> void registerPropertyHandler(Class<V> viewClass, String key, TiPropertyHandler<? super V> handler)
+	{
+		synchronized (registeredHandlers) {
+			LinkedHashMap<String, TiPropertyHandler<TiUIView>> handlers = registeredHandlers.get(viewClass);
+			if (handlers == null) {
+				handlers = new LinkedHashMap<String, TiPropertyHandler<TiUIView>>();
+				registeredHandlers.put(viewClass, handlers);
+			}
+			handlers.put(key, (TiPropertyHandler<TiUIView>) (TiPropertyHandler<?>) handler);
+			propertyTables.clear();
+		}
+	}
+
+	private static PropertyTable propertyTableFor(Class<?> viewClass)
+	{
+		PropertyTable table = propertyTables.get(viewClass);
+		if (table != null) {
+			return table;
+		}
+
+		ArrayList<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> c = viewClass; c != null && TiUIView.class.isAssignableFrom(c); c = c.getSuperclass()) {
+			hierarchy.add(0, c);
+		}
+
+		table = new PropertyTable();
+		table.handlers = new HashMap<String, TiPropertyHandler<TiUIView>>();
+		table.processed = new LinkedHashMap<String, TiPropertyHandler<TiUIView>>();
+		synchronized (registeredHandlers) {
+			for (Class<?> c : hierarchy) {
+				LinkedHashMap<String, TiPropertyHandler<TiUIView>> handlers = registeredHandlers.get(c);
+				if (handlers != null) {
+					table.handlers.putAll(handlers);
+					if (c != TiUIView.class) {
+						table.processed.putAll(handlers);
+					}
+				}
+			}
+			propertyTables.put(viewClass, table);
+		}
+		return table;
+	}
+
+	private static int optionValue(Object value) {
+		return value != null ? TiConvert.toTiDimension(value).getIntValue() : TiCompositeLayout.NOT_SET;
+	}
+
+	static {
+		registerPropertyHandler(TiUIView.class, "left", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.layoutParams.optionLeft = optionValue(newValue);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "top", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.layoutParams.optionTop = optionValue(newValue);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "right", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.layoutParams.optionRight = optionValue(newValue);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "bottom", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.layoutParams.optionBottom = optionValue(newValue);
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "size", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				if (newValue instanceof TiDict) {
+					TiDict d = (TiDict)newValue;
+					view.propertyChanged("width", oldValue, d.get("width"), proxy);
+					view.propertyChanged("height", oldValue, d.get("height"), proxy);
+				} else if (newValue != null) {
+					Log.w(LCAT, "Unsupported property type ("+(newValue.getClass().getSimpleName())+") for key: " + key+". Must be an object/dictionary");
+				}
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "height", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				LayoutParams params = view.layoutParams;
+				if (newValue != null) {
+					if (!newValue.equals("auto")) {
+						params.optionHeight = optionValue(newValue);
+						params.autoHeight = false;
+					} else {
+						params.optionHeight = TiCompositeLayout.NOT_SET;
+						params.autoHeight = true;
+					}
+				} else {
+					params.optionHeight = TiCompositeLayout.NOT_SET;
+				}
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "width", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				LayoutParams params = view.layoutParams;
+				if (newValue != null) {
+					if (!newValue.equals("auto")) {
+						params.optionWidth = optionValue(newValue);
+						params.autoWidth = false;
+					} else {
+						params.optionWidth = TiCompositeLayout.NOT_SET;
+						params.autoWidth = true;
+					}
+				} else {
+					params.optionWidth = TiCompositeLayout.NOT_SET;
+				}
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "zIndex", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				if (newValue != null) {
+					view.layoutParams.optionZIndex = TiConvert.toInt(TiConvert.toString(newValue));
+				} else {
+					view.layoutParams.optionZIndex = 0;
+				}
+				view.layoutNativeView();
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "visible", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.nativeView.setVisibility(TiConvert.toBoolean(newValue) ? View.VISIBLE : View.INVISIBLE);
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "enabled", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.nativeView.setEnabled(TiConvert.toBoolean(newValue));
+			}
+		});
+		registerPropertyHandler(TiUIView.class, "softKeyboardOnFocus", new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				Log.w(LCAT, "Focus state changed to " + TiConvert.toString(newValue) + " not honored until next focus event.");
+			}
+		});
+
+		TiPropertyHandler<TiUIView> background = new TiPropertyHandler<TiUIView>() {
+			public void propertyChanged(TiUIView view, String key, Object oldValue, Object newValue, TiProxy proxy) {
+				view.backgroundPropertyChanged(key, newValue, proxy);
+			}
+		};
+		registerPropertyHandler(TiUIView.class, "opacity", background);
+		registerPropertyHandler(TiUIView.class, "backgroundColor", background);
+		registerPropertyHandler(TiUIView.class, "backgroundImage", background);
+		registerPropertyHandler(TiUIView.class, "borderColor", background);
+		registerPropertyHandler(TiUIView.class, "borderRadius", background);
+		registerPropertyHandler(TiUIView.class, "borderWidth", background);
 	}
 
 	public void add(TiUIView child)
@@ -153,155 +347,99 @@ public abstract class TiUIView
 	public void listenerRemoved(String type, int count, TiProxy proxy) {
 	}
 
-	public void propertyChanged(String key, Object oldValue, Object newValue, TiProxy proxy)
+	public void beginPropertyChanges(TiProxy proxy) {
+		changeDepth++;
+	}
+
+	public void endPropertyChanges(TiProxy proxy)
 	{
-		if (key.equals("left")) {
-			if (newValue != null) {
-				layoutParams.optionLeft = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-			} else {
-				layoutParams.optionLeft = TiCompositeLayout.NOT_SET;
-			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
-			}
-		} else if (key.equals("top")) {
-			if (newValue != null) {
-				layoutParams.optionTop = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-			} else {
-				layoutParams.optionTop = TiCompositeLayout.NOT_SET;
-			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
-			}
-		} else if (key.equals("right")) {
-			if (newValue != null) {
-				layoutParams.optionRight = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-			} else {
-				layoutParams.optionRight = TiCompositeLayout.NOT_SET;
-			}
+		if (--changeDepth == 0 && layoutRequested) {
+			layoutRequested = false;
 			if (nativeView != null) {
 				nativeView.requestLayout();
 			}
-		} else if (key.equals("bottom")) {
-			if (newValue != null) {
-				layoutParams.optionBottom = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-			} else {
-				layoutParams.optionBottom = TiCompositeLayout.NOT_SET;
-			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
-			}
-		} else if (key.equals("size")) {
-			if (newValue instanceof TiDict) {
-				TiDict d = (TiDict)newValue;
-				propertyChanged("width",oldValue,d.get("width"),proxy);
-				propertyChanged("height",oldValue,d.get("height"),proxy);
-			}else if (newValue != null){
-				Log.w(LCAT, "Unsupported property type ("+(newValue.getClass().getSimpleName())+") for key: " + key+". Must be an object/dictionary");
-			}
-		} else if (key.equals("height")) {
-			if (newValue != null) {
-				if (!newValue.equals("auto")) {
-					layoutParams.optionHeight = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-					layoutParams.autoHeight = false;
-				} else {
-					layoutParams.optionHeight = TiCompositeLayout.NOT_SET;
-					layoutParams.autoHeight = true;
-				}
-			} else {
-				layoutParams.optionHeight = TiCompositeLayout.NOT_SET;
-			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
-			}
-		} else if (key.equals("width")) {
-			if (newValue != null) {
-				if (!newValue.equals("auto")) {
-					layoutParams.optionWidth = TiConvert.toTiDimension(TiConvert.toString(newValue)).getIntValue();
-					layoutParams.autoWidth = false;
-				} else {
-					layoutParams.optionWidth = TiCompositeLayout.NOT_SET;
-					layoutParams.autoWidth = true;
-				}
-			} else {
-				layoutParams.optionWidth = TiCompositeLayout.NOT_SET;
+		}
+	}
+
+	/**
+	 * Requests a layout of the native view, or once at the end when called while a group of
+	 * property changes is being applied.
+	 */
+	protected void layoutNativeView()
+	{
+		if (changeDepth > 0) {
+			layoutRequested = true;
+		} else if (nativeView != null) {
+			nativeView.requestLayout();
+		}
+	}
+
+	public void propertyChanged(String key, Object oldValue, Object newValue, TiProxy proxy)
+	{
+		TiPropertyHandler<TiUIView> handler = propertyTable.handlers.get(key);
+		if (handler != null) {
+			handler.propertyChanged(this, key, oldValue, newValue, proxy);
+		} else if (key.startsWith("border")) {
+			backgroundPropertyChanged(key, newValue, proxy);
+		} else {
+			if (DBG) {
+				Log.i(LCAT, "Unhandled property key: " + key);
 			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
+		}
+	}
+
+	private void backgroundPropertyChanged(String key, Object newValue, TiProxy proxy)
+	{
+		TiDict d = proxy.getDynamicProperties();
+
+		boolean hasBorder = d.get("borderColor") != null || d.get("borderRadius") != null || d.get("borderWidth") != null;
+		boolean hasImage = d.get("backgroundImage") != null || d.get("backgroundSelectedImage") != null || d.get("backgroundDisabledImage") != null;
+		boolean requiresCustomBackground = hasImage || hasBorder;
+
+		if (!requiresCustomBackground) {
+			if (background != null) {
+				background.releaseDelegate();
+				background.setCallback(null);
+				background = null;
 			}
-		} else if (key.equals("zIndex")) {
-			if (newValue != null) {
-				layoutParams.optionZIndex = TiConvert.toInt(TiConvert.toString(newValue));
-			} else {
-				layoutParams.optionZIndex = 0;
+
+			Integer bgColor = TiConvert.toColor(d, "backgroundColor", "opacity");
+			if (nativeView != null){
+				nativeView.setBackgroundColor(bgColor);
+				nativeView.postInvalidate();
 			}
-			if (nativeView != null) {
-				nativeView.requestLayout();
+		} else {
+			boolean newBackground = background == null;
+			if (newBackground) {
+				background = new TiBackgroundDrawable();
 			}
-		} else if (key.equals("visible")) {
-			nativeView.setVisibility(TiConvert.toBoolean(newValue) ? View.VISIBLE : View.INVISIBLE);
-		} else if (key.equals("enabled")) {
-			nativeView.setEnabled(TiConvert.toBoolean(newValue));
-		} else if (key.equals("opacity") || key.equals("backgroundColor") || key.equals("backgroundImage") || key.startsWith("border")) {
-			TiDict d = proxy.getDynamicProperties();
-
-			boolean hasBorder = d.get("borderColor") != null || d.get("borderRadius") != null || d.get("borderWidth") != null;
-			boolean hasImage = d.get("backgroundImage") != null || d.get("backgroundSelectedImage") != null || d.get("backgroundDisabledImage") != null;
-			boolean requiresCustomBackground = hasImage || hasBorder;
-				;
-
-			if (!requiresCustomBackground) {
-				if (background != null) {
-					background.releaseDelegate();
-					background.setCallback(null);
-					background = null;
-				}
 
-				Integer bgColor = TiConvert.toColor(d, "backgroundColor", "opacity");
-				if (nativeView != null){
-					nativeView.setBackgroundColor(bgColor);
-					nativeView.postInvalidate();
-				}
-			} else if (key.equals("softKeyboardOnFocus")) {
-				Log.w(LCAT, "Focus state changed to " + TiConvert.toString(newValue) + " not honored until next focus event.");
-			} else {
-				boolean newBackground = background == null;
-				if (newBackground) {
-					background = new TiBackgroundDrawable();
-				}
+			Integer bgColor = null;
 
-				Integer bgColor = null;
-
-				if (d.get("backgroundColor") != null) {
-					bgColor = TiConvert.toColor(d, "backgroundColor", "opacity");
-					if (newBackground || (key.equals("opacity") || key.equals("backgroundColor"))) {
-						background.setBackgroundColor(bgColor);
-					}
-				}
-
-				if (hasImage) {
-					if (newBackground || key.equals("backgroundImage") || key.equals("backgroundSelectedImage") || key.equals("backgroundDisabledImage")) {
-						handleBackgroundImage(d);
-					}
+			if (d.get("backgroundColor") != null) {
+				bgColor = TiConvert.toColor(d, "backgroundColor", "opacity");
+				if (newBackground || (key.equals("opacity") || key.equals("backgroundColor"))) {
+					background.setBackgroundColor(bgColor);
 				}
+			}
 
-				if (hasBorder) {
-					if (newBackground) {
-						initializeBorder(d, bgColor);
-					} else if (key.startsWith("border")) {
-						handleBorderProperty(key, newValue);
-					}
+			if (hasImage) {
+				if (newBackground || key.equals("backgroundImage") || key.equals("backgroundSelectedImage") || key.equals("backgroundDisabledImage")) {
+					handleBackgroundImage(d);
 				}
+			}
 
-				applyCustomBackground();
-				if (nativeView != null) {
-					nativeView.postInvalidate();
+			if (hasBorder) {
+				if (newBackground) {
+					initializeBorder(d, bgColor);
+				} else if (key.startsWith("border")) {
+					handleBorderProperty(key, newValue);
 				}
 			}
 
-		} else {
-			if (DBG) {
-				Log.i(LCAT, "Unhandled property key: " + key);
+			applyCustomBackground();
+			if (nativeView != null) {
+				nativeView.postInvalidate();
 			}
 		}
 	}
@@ -317,9 +455,7 @@ public abstract class TiUIView
 			}
 		}
 		if (TiConvert.fillLayout(d, layoutParams)) {
-			if (nativeView != null) {
-				nativeView.requestLayout();
-			}
+			layoutNativeView();
 		}
 
 		Integer bgColor = null;
@@ -347,6 +483,12 @@ public abstract class TiUIView
 			AnimationSet as = animBuilder.render(nativeView);
 			nativeView.startAnimation(as);
 		}
+
+		for (Map.Entry<String, TiPropertyHandler<TiUIView>> entry : propertyTable.processed.entrySet()) {
+			if (d.containsKey(entry.getKey())) {
+				entry.getValue().processProperty(this, entry.getKey(), d);
+			}
+		}
 	}
 
 	private void applyCustomBackground() {
@@ -581,14 +723,24 @@ public abstract class TiUIView
 		motionEvents.put(MotionEvent.ACTION_CANCEL, "touchcancel");
 	}
 
-	private TiDict dictFromEvent(MotionEvent e) {
-		TiDict data = new TiDict();
-		data.put("x", (double)e.getX());
-		data.put("y", (double)e.getY());
+	private TiEvent eventFromMotion(String type, MotionEvent e) {
+		TiEvent data = TiEvent.obtain(type);
+		data.putDouble("x", e.getX());
+		data.putDouble("y", e.getY());
 		data.put("source", proxy);
 		return data;
 	}
 
+	private boolean fireMotionEvent(String type, MotionEvent e)
+	{
+		TiEvent data = eventFromMotion(type, e);
+		try {
+			return proxy.fireEvent(type, data);
+		} finally {
+			data.recycle();
+		}
+	}
+
 	protected boolean allowRegisterForTouch() {
 		return true;
 	}
@@ -607,16 +759,16 @@ public abstract class TiUIView
 			new SimpleOnGestureListener() {
 				@Override
 				public boolean onDoubleTap(MotionEvent e) {
-					boolean handledTap = proxy.fireEvent("doubletap", dictFromEvent(e));
-					boolean handledClick = proxy.fireEvent("dblclick", dictFromEvent(e));
+					boolean handledTap = fireMotionEvent("doubletap", e);
+					boolean handledClick = fireMotionEvent("dblclick", e);
 					return handledTap || handledClick;
 				}
 
 				@Override
 				public boolean onSingleTapConfirmed(MotionEvent e) {
 					Log.e(LCAT, "TAP, TAP, TAP");
-					boolean handledTap = proxy.fireEvent("singletap", dictFromEvent(e));
-					boolean handledClick = proxy.fireEvent("click", dictFromEvent(e));
+					boolean handledTap = fireMotionEvent("singletap", e);
+					boolean handledClick = fireMotionEvent("click", e);
 					return handledTap || handledClick;
 				}
 			});
@@ -624,8 +776,11 @@ public abstract class TiUIView
 		touchable.setOnTouchListener(new OnTouchListener() {
 			public boolean onTouch(View view, MotionEvent event) {
 				boolean handled = detector.onTouchEvent(event);
-				if (!handled && motionEvents.containsKey(event.getAction())) {
-					handled = proxy.fireEvent(motionEvents.get(event.getAction()), dictFromEvent(event));
+				if (!handled) {
+					String type = motionEvents.get(event.getAction());
+					if (type != null) {
+						handled = fireMotionEvent(type, event);
+					}
 				}
 				return handled;
 			}
@@ -1,3 +1,11 @@
+// headless bridge benchmark, see examples/bridge_benchmark_cases.js
+if (Titanium.Platform.name == 'android' && Titanium.App.Benchmark)
+{
+	Titanium.include('examples/bridge_benchmark_cases.js');
+	runBridgeBenchmark(function(line) { Titanium.API.info('BENCH ' + line); });
+	Titanium.API.info('BENCH done');
+}
+
 // this sets the background color of the master UIView (when there are no windows/tab groups on it)
 Titanium.UI.setBackgroundColor('#000');
 
@@ -0,0 +1,21 @@
+var win = Titanium.UI.currentWindow;
+
+var label = Titanium.UI.createLabel({
+	text:'Running...',
+	top:10,
+	left:10,
+	right:10,
+	height:'auto'
+});
+win.add(label);
+
+Titanium.include('bridge_benchmark_cases.js');
+
+var results = [];
+runBridgeBenchmark(function(line)
+{
+	Titanium.API.info('BENCH ' + line);
+	results.push(line);
+});
+
+label.text = results.join('\n');
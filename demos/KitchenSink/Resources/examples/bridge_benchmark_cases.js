@@ -0,0 +1,142 @@
+// Bridge microbenchmark cases, shared by the Bridge Benchmark page and the headless run
+// from app.js.
+//
+// To run it headless on Android, add to tiapp.xml
+//   <property name="ti.android.bridgeBenchmark" type="bool">true</property>
+// run the app and read the results with: adb logcat | grep BENCH
+//
+// The native side is Titanium.App.Benchmark, which only exists with that property set.
+//
+// Every case runs a fixed number of iterations: one untimed warmup run, then REPEATS
+// timed runs, reporting the median time per iteration in nanoseconds. The call cases go
+// to no-op native methods so only the bridge is measured. The accessor cases time TiDict
+// and TiConvert natively, per key.
+
+var BENCH_REPEATS = 9;
+
+function runBridgeBenchmark(report)
+{
+	function now()
+	{
+		return benchmark.nanoTime();
+	}
+
+	function bench(name, iterations, fn)
+	{
+		var i;
+		for (i = 0; i < iterations; i++)
+		{
+			fn(i);
+		}
+
+		var samples = [];
+		for (var r = 0; r < BENCH_REPEATS; r++)
+		{
+			var start = now();
+			for (i = 0; i < iterations; i++)
+			{
+				fn(i);
+			}
+			samples.push((now() - start) / iterations);
+		}
+		samples.sort(function(a, b) { return a - b; });
+
+		var median = samples[Math.floor(samples.length / 2)];
+		report(name + ': ' + Math.round(median) + ' ns/op (min ' + Math.round(samples[0]) +
+			', max ' + Math.round(samples[samples.length - 1]) + ', ' + iterations + ' x ' + BENCH_REPEATS + ')');
+	}
+
+	function makeDict(size)
+	{
+		var d = {};
+		for (var i = 0; i < size; i++)
+		{
+			d['key' + i] = i;
+		}
+		return d;
+	}
+
+	function makeArray(size)
+	{
+		var a = [];
+		for (var i = 0; i < size; i++)
+		{
+			a.push(i * 1.5);
+		}
+		return a;
+	}
+
+	function readAll(o)
+	{
+		var n = 0;
+		for (var k in o)
+		{
+			if (o[k] !== undefined)
+			{
+				n++;
+			}
+		}
+		return n;
+	}
+
+	var app = Titanium.App;
+	var benchmark = Titanium.App.Benchmark;
+	var label = Titanium.UI.createLabel({text:'bench'});
+
+	Titanium.App.resetBridgeStats();
+	Titanium.App.setBridgeStatsEnabled(true);
+
+	// property access
+	bench('constant get', 2000, function() { return Titanium.API.INFO; });
+	bench('getter property get', 2000, function() { return app.name; });
+	bench('dynamic property get', 2000, function() { return label.text; });
+	bench('dynamic property put', 2000, function(i) { label.color = (i % 2) ? '#000' : '#fff'; });
+
+	// method calls
+	bench('call, 0 args', 2000, function() { benchmark.call0(); });
+	bench('call, 1 arg', 2000, function(i) { benchmark.call1(i); });
+	bench('call, 2 args', 2000, function(i) { benchmark.call2(i, 'b'); });
+	bench('call, 3 args', 2000, function(i) { benchmark.call3(i, 'b', true); });
+	bench('call, 4 args', 2000, function(i) { benchmark.call4(i, 'b', true, 1.5); });
+	bench('call, 5 args', 2000, function(i) { benchmark.call5(i, 'b', true, 1.5, null); });
+
+	// type conversion, JS to native goes through a no-op call
+	var sizes = [1, 10, 100];
+	for (var s = 0; s < sizes.length; s++)
+	{
+		var size = sizes[s];
+		var iterations = 2000 / size < 50 ? 50 : 2000 / size;
+		var dict = makeDict(size);
+		var array = makeArray(size);
+
+		bench('toNative dict (' + size + ')', iterations, function() { benchmark.call1(dict); });
+		bench('toNative array (' + size + ')', iterations, function() { benchmark.call1(array); });
+		bench('fromNative dict (' + size + ')', iterations, function() { return readAll(benchmark.dict(size)); });
+		bench('fromNative array (' + size + ')', iterations, function() { return benchmark.array(size).length; });
+	}
+
+	// native TiDict and TiConvert accessors, timed on the native side
+	var accessors = ['put', 'putInt', 'get', 'getIntValue', 'getDoubleValue', 'getString',
+		'toInt', 'toDouble', 'toString', 'iterate', 'toJSON'];
+	for (var a = 0; a < accessors.length; a++)
+	{
+		for (var s = 0; s < sizes.length; s++)
+		{
+			var samples = [];
+			for (var r = 0; r < BENCH_REPEATS; r++)
+			{
+				samples.push(benchmark.timeAccessor(accessors[a], sizes[s], 10000 / sizes[s]));
+			}
+			samples.sort(function(x, y) { return x - y; });
+			report('TiDict ' + accessors[a] + ' (' + sizes[s] + '): ' + samples[Math.floor(samples.length / 2)].toFixed(1) +
+				' ns/key (min ' + samples[0].toFixed(1) + ', max ' + samples[samples.length - 1].toFixed(1) + ')');
+		}
+	}
+
+	Titanium.App.setBridgeStatsEnabled(false);
+	var path = Titanium.App.dumpBridgeStats();
+	if (path)
+	{
+		report('Per method stats written to ' + path);
+	}
+}
@@ -27,6 +27,10 @@ if (Titanium.Platform.name == 'iPhone OS')
 	data.push({title:'Bonjour', hasChild:true, test:'../examples/bonjour.js'});
 	data.push({title:'Sockets', hasChild:true, test:'../examples/sockets.js'});
 }
+if (Titanium.Platform.name == 'android' && Titanium.App.Benchmark)
+{
+	data.push({title:'Bridge Benchmark', hasChild:true, test:'../examples/bridge_benchmark.js'});
+}
 
 // create table view
 var tableview = Titanium.UI.createTableView({
@@ -388,6 +388,25 @@ class Builder(object):
 					cmd = [self.sdk.get_adb(), self.device_type_arg, "push", delta.get_path(), "%s/%s" % (self.sdcard_resources, relative_path)]
 					run.run(cmd)
 		
+	def generate_warmup_list(self,compiler):
+		# list the module and proxy classes the app references so TiApplication
+		# can pre-populate its method cache off the main thread during startup
+		classes = []
+		for m in compiler.modules:
+			package = "ti.modules.titanium.%s" % m.lower()
+			classes.append("%s.%sModule" % (package, m))
+			for mn in compiler.module_methods:
+				parts = mn.split('.')
+				if len(parts) != 2 or parts[0] != m or not parts[1].startswith('create'): continue
+				proxy = parts[1][6:]
+				if len(proxy) == 0: continue
+				if proxy[0].isdigit(): proxy = "_" + proxy
+				classes.append("%s.%sProxy" % (package, proxy))
+		warmup_file = open(os.path.join(self.assets_dir,'ti.warmup'),'w')
+		warmup_file.write("\n".join(classes))
+		warmup_file.close()
+		debug("wrote %d classes to the method warmup list" % len(classes))
+
 	def generate_android_manifest(self,compiler):
 		
 		# NOTE: these are built-in permissions we need -- we probably need to refine when these are needed too
@@ -846,6 +865,7 @@ class Builder(object):
 			compiler = Compiler(self.app_id,full_resource_dir,self.java,self.classes_dir)
 			compiler.compile()
 			self.compiled_files = compiler.compiled_files
+			self.generate_warmup_list(compiler)
 
 			if self.tiapp_changed or self.deploy_type == "production":
 				trace("Generating Java Classes")
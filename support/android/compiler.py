@@ -157,8 +157,12 @@ class Compiler(object):
 						relative = prefix[1:]
 						package = "org.appcelerator.generated"
 						if len(relative)>0:
-							relative = relative.replace('/','.').replace('\\','.')
-							package += ".%s" % relative
+							# keep in sync with KrollContext.compiledClassName
+							for segment in re.split(r'[/\\]', relative):
+								if len(segment)==0: continue
+								segment = re.sub(r'[^\w$]', '_', segment)
+								if not (segment[0].isalpha() or segment[0] in '_$'): segment = '_' + segment
+								package += ".%s" % segment
 						if self.js_files.has_key(package):
 							self.js_files[package].append(fullpath)
 						else: